@@ -0,0 +1,42 @@
+#!/bin/sh
+
+#
+# Creates an application class-data sharing (CDS) archive from a training run of the uber-jar.
+# The archive is used by Dockerfile.deploy and .s2i/bin/run when enabled at image build time.
+# Requires Java 13 or later.
+#
+# Usage: cds-train.sh <uber-jar> <archive>
+#
+
+JAR=$1
+ARCHIVE=$2
+PORT=${CDS_TRAINING_PORT:-8080}
+BASE_URL="http://localhost:${PORT}"
+
+rm -f "${ARCHIVE}"
+java -XX:ArchiveClassesAtExit="${ARCHIVE}" -Dswarm.http.port=${PORT} -jar "${JAR}" &
+PID=$!
+
+# Wait until the application is ready
+for i in $(seq 1 180); do
+  if curl -sf "${BASE_URL}/health/ready" > /dev/null; then
+    break
+  fi
+  sleep 1
+done
+
+# Exercise the wizard, so the classes of the request path are archived too
+curl -sf "${BASE_URL}/launchpad/version" > /dev/null
+curl -sf "${BASE_URL}/launchpad/commands/launchpad-new-project" > /dev/null
+curl -sf -H "Content-Type: application/json" -d '{"stepIndex":1,"inputs":[]}' \
+  "${BASE_URL}/launchpad/commands/launchpad-new-project/validate" > /dev/null
+
+# The archive is written when the JVM exits
+kill -TERM ${PID}
+wait ${PID}
+
+if [ ! -f "${ARCHIVE}" ]; then
+  echo "CDS archive ${ARCHIVE} was not created"
+  exit 1
+fi
+echo "Created CDS archive ${ARCHIVE}"
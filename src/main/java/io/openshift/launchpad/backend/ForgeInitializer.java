@@ -51,6 +51,7 @@ public class ForgeInitializer implements ServletContextListener
          System.setProperty("org.jboss.forge.addon.configuration.USER_CONFIG_PATH", tmpFile.getAbsolutePath());
          ServletContext servletContext = sce.getServletContext();
          version = servletContext.getInitParameter("project.version");
+         StartupTimer.mark("servlet init");
       }
       catch (IOException e)
       {
@@ -65,23 +66,21 @@ public class ForgeInitializer implements ServletContextListener
 
    private static Path rootPath;
 
-   public static Path getRoot()
+   public static synchronized Path getRoot()
    {
       if (rootPath == null)
       {
-         rootPath = Paths.get(System.getenv().getOrDefault("OPENSHIFT_TMP_DIR",
+         Path path = Paths.get(System.getenv().getOrDefault("OPENSHIFT_TMP_DIR",
                   System.getProperty("java.io.tmpdir")), "workspace");
-         if (!Files.exists(rootPath))
+         try
          {
-            try
-            {
-               Files.createDirectory(rootPath);
-            }
-            catch (IOException e)
-            {
-               e.printStackTrace();
-            }
+            Files.createDirectories(path);
          }
+         catch (IOException e)
+         {
+            LOG.log(Level.SEVERE, "Error while creating " + path, e);
+         }
+         rootPath = path;
       }
       return rootPath;
    }
@@ -0,0 +1,100 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Logs how long after the JVM start each startup phase was reached
+ */
+public class StartupTimer
+{
+   private static final Logger LOG = Logger.getLogger(StartupTimer.class.getName());
+
+   private static final Set<String> reached = ConcurrentHashMap.newKeySet();
+   private static final Map<String, Long> addonNanos = new ConcurrentHashMap<>();
+   private static volatile long lastMark;
+
+   /**
+    * Logs the time elapsed since the JVM start and since the previous phase. Only the first call for a given phase is
+    * logged.
+    *
+    * @param phase the name of the phase that was reached
+    */
+   public static void mark(String phase)
+   {
+      if (reached.add(phase))
+      {
+         long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+         long previous = lastMark;
+         lastMark = uptime;
+         LOG.info(String.format("Startup phase '%s' reached after %d ms (+%d ms)", phase, uptime, uptime - previous));
+      }
+   }
+
+   /**
+    * @return true if the given phase was reached
+    */
+   public static boolean isReached(String phase)
+   {
+      return reached.contains(phase);
+   }
+
+   /**
+    * Adds the given time to the warm-up time of an addon
+    *
+    * @param addon the name of the addon, or of the command it provides
+    * @param nanos the time spent initializing the addon, in nanoseconds
+    */
+   public static void record(String addon, long nanos)
+   {
+      addonNanos.merge(addon, nanos, Long::sum);
+   }
+
+   /**
+    * Runs the given task and adds its duration to the warm-up time of an addon
+    */
+   public static void time(String addon, Runnable task)
+   {
+      long start = System.nanoTime();
+      try
+      {
+         task.run();
+      }
+      finally
+      {
+         record(addon, System.nanoTime() - start);
+      }
+   }
+
+   /**
+    * Logs the warm-up time of each addon, slowest first
+    */
+   public static void report()
+   {
+      StringBuilder report = new StringBuilder("Addon warm-up times:");
+      addonNanos.entrySet().stream()
+               .sorted(Map.Entry.<String, Long> comparingByValue().reversed())
+               .forEach(entry -> report.append(String.format("%n  %6d ms  %s",
+                        TimeUnit.NANOSECONDS.toMillis(entry.getValue()), entry.getKey())));
+      LOG.info(report.toString());
+   }
+}
@@ -0,0 +1,52 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.io.IOException;
+
+/**
+ * Stores the generated project archives, so a project generated once from the same inputs and catalog is not generated
+ * again. Implementations must be thread-safe.
+ */
+public interface ArchiveCache
+{
+   /**
+    * An {@link ArchiveCache} that keeps nothing
+    */
+   ArchiveCache NONE = new ArchiveCache()
+   {
+      @Override
+      public CachedArchive get(String key)
+      {
+         return null;
+      }
+
+      @Override
+      public void put(String key, CachedArchive archive)
+      {
+      }
+   };
+
+   /**
+    * @return the archive stored with the given key, or null
+    */
+   CachedArchive get(String key) throws IOException;
+
+   /**
+    * Stores the given archive, replacing the archive previously stored with the same key
+    */
+   void put(String key, CachedArchive archive) throws IOException;
+}
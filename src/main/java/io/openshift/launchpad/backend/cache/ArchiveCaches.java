@@ -0,0 +1,88 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import io.openshift.launchpad.backend.util.Environment;
+
+/**
+ * Creates the configured {@link ArchiveCache}
+ */
+public final class ArchiveCaches
+{
+   private static final String LAUNCHPAD_BACKEND_ARCHIVE_CACHE_MB = "LAUNCHPAD_BACKEND_ARCHIVE_CACHE_MB";
+   private static final String LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_DIR =
+            "LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_DIR";
+   private static final String LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_TTL_HOURS =
+            "LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_TTL_HOURS";
+   private static final long DEFAULT_CACHE_MB = 256;
+   private static final long DEFAULT_SHARED_TTL_HOURS = 24;
+
+   private ArchiveCaches()
+   {
+   }
+
+   /**
+    * Creates the {@link ArchiveCache} configured by the environment variables (or system properties):
+    * <ul>
+    * <li>LAUNCHPAD_BACKEND_ARCHIVE_CACHE_MB: the size of the local cache, stored in the given directory (256 by
+    * default, 0 disables it)</li>
+    * <li>LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_DIR: the directory of the cache shared by all replicas, on a mounted
+    * volume (not shared by default)</li>
+    * <li>LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_TTL_HOURS: how long an archive is kept in the shared cache (24 by
+    * default)</li>
+    * </ul>
+    */
+   public static ArchiveCache fromEnvironment(Path localDirectory)
+   {
+      long maxBytes = Environment.getMegabytes(LAUNCHPAD_BACKEND_ARCHIVE_CACHE_MB, DEFAULT_CACHE_MB);
+      String sharedDirectory = Environment.getEnv(LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_DIR);
+      ArchiveCache local = maxBytes > 0 ? new LocalArchiveCache(localDirectory, maxBytes) : ArchiveCache.NONE;
+      if (sharedDirectory == null)
+      {
+         return local;
+      }
+      ArchiveCache shared = new SharedArchiveCache(Paths.get(sharedDirectory), TimeUnit.HOURS
+               .toMillis(Environment.getLong(LAUNCHPAD_BACKEND_ARCHIVE_CACHE_SHARED_TTL_HOURS, DEFAULT_SHARED_TTL_HOURS)));
+      return local != ArchiveCache.NONE ? new TieredArchiveCache(local, shared) : shared;
+   }
+
+   /**
+    * @return a file name identifying the given key
+    */
+   static String toFileName(String key)
+   {
+      try
+      {
+         byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+         StringBuilder name = new StringBuilder(digest.length * 2);
+         for (byte b : digest)
+         {
+            name.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+         }
+         return name.toString();
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+}
@@ -0,0 +1,48 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A generated project archive and the properties of the project returned by its generation
+ */
+public class CachedArchive
+{
+   private final byte[] contents;
+   private final Map<String, String> properties;
+
+   public CachedArchive(byte[] contents, Map<String, String> properties)
+   {
+      this.contents = contents;
+      this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+   }
+
+   /**
+    * @return the contents of the archive, not to be modified
+    */
+   public byte[] getContents()
+   {
+      return contents;
+   }
+
+   public Map<String, String> getProperties()
+   {
+      return properties;
+   }
+}
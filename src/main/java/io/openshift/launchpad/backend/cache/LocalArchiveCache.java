@@ -0,0 +1,164 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import io.openshift.launchpad.backend.util.Paths;
+
+/**
+ * An {@link ArchiveCache} storing the archives in a local directory, evicting the least recently used ones beyond a
+ * total size
+ */
+public class LocalArchiveCache implements ArchiveCache
+{
+   private static final Logger log = Logger.getLogger(LocalArchiveCache.class.getName());
+
+   private final Path directory;
+   private final long maxBytes;
+   private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+   private long totalBytes;
+   private boolean initialized;
+
+   /**
+    * @param directory where the archives are stored
+    * @param maxBytes the total size of the archives kept
+    */
+   public LocalArchiveCache(Path directory, long maxBytes)
+   {
+      this.directory = directory;
+      this.maxBytes = maxBytes;
+   }
+
+   @Override
+   public CachedArchive get(String key) throws IOException
+   {
+      Entry entry;
+      synchronized (this)
+      {
+         entry = entries.get(key);
+      }
+      if (entry == null)
+      {
+         return null;
+      }
+      try
+      {
+         return new CachedArchive(Files.readAllBytes(entry.file), entry.properties);
+      }
+      catch (IOException e)
+      {
+         // Evicted meanwhile
+         return null;
+      }
+   }
+
+   @Override
+   public void put(String key, CachedArchive archive) throws IOException
+   {
+      byte[] contents = archive.getContents();
+      if (contents.length > maxBytes)
+      {
+         return;
+      }
+      initialize();
+      Path file = Files.createTempFile(directory, ArchiveCaches.toFileName(key), ".zip");
+      Files.write(file, contents);
+      synchronized (this)
+      {
+         Entry previous = entries.put(key, new Entry(file, contents.length, archive.getProperties()));
+         totalBytes += contents.length;
+         if (previous != null)
+         {
+            totalBytes -= previous.size;
+            delete(previous);
+         }
+         Iterator<Entry> eldest = entries.values().iterator();
+         while (totalBytes > maxBytes && eldest.hasNext())
+         {
+            Entry entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.size;
+            delete(entry);
+         }
+      }
+   }
+
+   /**
+    * @return the number of archives kept
+    */
+   public synchronized int size()
+   {
+      return entries.size();
+   }
+
+   /**
+    * @return the total size of the archives kept
+    */
+   public synchronized long getTotalBytes()
+   {
+      return totalBytes;
+   }
+
+   /**
+    * Deletes the archives left by a previous run
+    */
+   private synchronized void initialize() throws IOException
+   {
+      if (!initialized)
+      {
+         if (Files.exists(directory))
+         {
+            Paths.deleteDirectory(directory);
+         }
+         Files.createDirectories(directory);
+         initialized = true;
+      }
+   }
+
+   private static void delete(Entry entry)
+   {
+      try
+      {
+         Files.deleteIfExists(entry.file);
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Error while deleting " + entry.file, e);
+      }
+   }
+
+   private static class Entry
+   {
+      private final Path file;
+      private final long size;
+      private final Map<String, String> properties;
+
+      Entry(Path file, long size, Map<String, String> properties)
+      {
+         this.file = file;
+         this.size = size;
+         this.properties = properties;
+      }
+   }
+}
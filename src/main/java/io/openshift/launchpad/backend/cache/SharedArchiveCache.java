@@ -0,0 +1,152 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * An {@link ArchiveCache} storing the archives in a directory shared by all replicas, eg. a mounted volume, so an
+ * archive is generated once per cluster. Files are written under a temporary name and moved in place, so readers never
+ * see a partial archive. Archives expire a given time after they were stored, whatever the catalog they were generated
+ * from: expired archives are not returned, and are deleted from the directory by the next store after a while.
+ */
+public class SharedArchiveCache implements ArchiveCache
+{
+   private static final Logger log = Logger.getLogger(SharedArchiveCache.class.getName());
+   private static final long SWEEP_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+   private final Path directory;
+   private final long maxAgeMillis;
+   private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+
+   /**
+    * @param directory where the archives are stored
+    * @param maxAgeMillis how long an archive is kept after it was stored
+    */
+   public SharedArchiveCache(Path directory, long maxAgeMillis)
+   {
+      this.directory = directory;
+      this.maxAgeMillis = maxAgeMillis;
+   }
+
+   @Override
+   public CachedArchive get(String key) throws IOException
+   {
+      String name = ArchiveCaches.toFileName(key);
+      try
+      {
+         // The archive is moved in place last, once its properties are complete
+         Path zip = directory.resolve(name + ".zip");
+         if (isExpired(zip))
+         {
+            return null;
+         }
+         byte[] contents = Files.readAllBytes(zip);
+         Properties properties = new Properties();
+         try (InputStream in = Files.newInputStream(directory.resolve(name + ".properties")))
+         {
+            properties.load(in);
+         }
+         Map<String, String> map = new LinkedHashMap<>();
+         for (String property : properties.stringPropertyNames())
+         {
+            map.put(property, properties.getProperty(property));
+         }
+         return new CachedArchive(contents, map);
+      }
+      catch (NoSuchFileException e)
+      {
+         return null;
+      }
+   }
+
+   @Override
+   public void put(String key, CachedArchive archive) throws IOException
+   {
+      String name = ArchiveCaches.toFileName(key);
+      Files.createDirectories(directory);
+      Properties properties = new Properties();
+      properties.putAll(archive.getProperties());
+      Path temp = Files.createTempFile(directory, ".archive", ".tmp");
+      try
+      {
+         try (OutputStream out = Files.newOutputStream(temp))
+         {
+            properties.store(out, null);
+         }
+         Files.move(temp, directory.resolve(name + ".properties"), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+         Files.write(temp, archive.getContents());
+         Files.move(temp, directory.resolve(name + ".zip"), StandardCopyOption.REPLACE_EXISTING,
+                  StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally
+      {
+         Files.deleteIfExists(temp);
+      }
+      long now = System.currentTimeMillis();
+      long last = lastSweep.get();
+      if (now - last >= Math.min(maxAgeMillis, SWEEP_INTERVAL_MILLIS) && lastSweep.compareAndSet(last, now))
+      {
+         deleteExpired();
+      }
+   }
+
+   /**
+    * Deletes the expired archives, and the temporary files left by the replicas which stopped while storing one
+    */
+   void deleteExpired() throws IOException
+   {
+      int deleted = 0;
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+      {
+         for (Path file : files)
+         {
+            try
+            {
+               if (isExpired(file))
+               {
+                  Files.deleteIfExists(file);
+                  deleted++;
+               }
+            }
+            catch (NoSuchFileException e)
+            {
+               // Deleted by another replica
+            }
+         }
+      }
+      log.fine("Deleted " + deleted + " expired files from the shared archive cache " + directory);
+   }
+
+   private boolean isExpired(Path file) throws IOException
+   {
+      return System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > maxAgeMillis;
+   }
+}
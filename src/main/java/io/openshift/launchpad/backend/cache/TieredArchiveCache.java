@@ -0,0 +1,56 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.cache;
+
+import java.io.IOException;
+
+/**
+ * An {@link ArchiveCache} looking up a fast local cache before a shared one, and keeping the archives found in the
+ * shared cache locally
+ */
+public class TieredArchiveCache implements ArchiveCache
+{
+   private final ArchiveCache local;
+   private final ArchiveCache shared;
+
+   public TieredArchiveCache(ArchiveCache local, ArchiveCache shared)
+   {
+      this.local = local;
+      this.shared = shared;
+   }
+
+   @Override
+   public CachedArchive get(String key) throws IOException
+   {
+      CachedArchive archive = local.get(key);
+      if (archive == null)
+      {
+         archive = shared.get(key);
+         if (archive != null)
+         {
+            local.put(key, archive);
+         }
+      }
+      return archive;
+   }
+
+   @Override
+   public void put(String key, CachedArchive archive) throws IOException
+   {
+      local.put(key, archive);
+      shared.put(key, archive);
+   }
+}
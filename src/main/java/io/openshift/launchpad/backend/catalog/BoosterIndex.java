@@ -0,0 +1,229 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * An immutable index of the boosters by mission, runtime and version. Missions, runtimes and versions get int ids
+ * when the index is built, so every lookup is a couple of hash lookups and array accesses.
+ *
+ * @param <B> the type of the boosters
+ */
+public class BoosterIndex<B>
+{
+   private final long version;
+   private final String[] missions;
+   private final String[] runtimes;
+   private final String[] versions;
+   private final Map<String, Integer> missionIds;
+   private final Map<String, Integer> runtimeIds;
+   private final Map<String, Integer> versionIds;
+   /**
+    * The boosters, at <code>(mission * runtimes.length + runtime) * versions.length + version</code>
+    */
+   private final Object[] boosters;
+   private final int size;
+   private final List<String> missionList;
+   /**
+    * The runtimes available for each mission id
+    */
+   private final List<List<String>> runtimeLists;
+   /**
+    * The versions available for each mission and runtime, at <code>mission * runtimes.length + runtime</code>
+    */
+   private final List<List<String>> versionLists;
+
+   /**
+    * Indexes the given boosters. A booster without version is indexed with a null version.
+    *
+    * @param version the version of the catalog the boosters come from
+    * @param boosters the boosters to index
+    * @param missionId returns the mission id of a booster
+    * @param runtimeId returns the runtime id of a booster
+    * @param versionId returns the version id of a booster, or null
+    */
+   public BoosterIndex(long version, Collection<B> boosters, Function<B, String> missionId,
+            Function<B, String> runtimeId, Function<B, String> versionId)
+   {
+      this.version = version;
+      this.missionIds = new LinkedHashMap<>();
+      this.runtimeIds = new LinkedHashMap<>();
+      this.versionIds = new LinkedHashMap<>();
+      for (B booster : boosters)
+      {
+         missionIds.putIfAbsent(missionId.apply(booster), missionIds.size());
+         runtimeIds.putIfAbsent(runtimeId.apply(booster), runtimeIds.size());
+         versionIds.putIfAbsent(versionId.apply(booster), versionIds.size());
+      }
+      this.missions = missionIds.keySet().toArray(new String[missionIds.size()]);
+      this.runtimes = runtimeIds.keySet().toArray(new String[runtimeIds.size()]);
+      this.versions = versionIds.keySet().toArray(new String[versionIds.size()]);
+
+      this.boosters = new Object[missions.length * runtimes.length * versions.length];
+      boolean[] missionHasRuntime = new boolean[missions.length * runtimes.length];
+      int count = 0;
+      for (B booster : boosters)
+      {
+         int mission = missionIds.get(missionId.apply(booster));
+         int runtime = runtimeIds.get(runtimeId.apply(booster));
+         int boosterVersion = versionIds.get(versionId.apply(booster));
+         int slot = (mission * runtimes.length + runtime) * versions.length + boosterVersion;
+         if (this.boosters[slot] == null)
+         {
+            count++;
+         }
+         this.boosters[slot] = booster;
+         missionHasRuntime[mission * runtimes.length + runtime] = true;
+      }
+      this.size = count;
+
+      // The runtime ids available for each mission id
+      int[][] runtimesByMission = new int[missions.length][];
+      // The version ids available for each mission and runtime, at mission * runtimes.length + runtime
+      int[][] versionsByMissionAndRuntime = new int[missions.length * runtimes.length][];
+      for (int mission = 0; mission < missions.length; mission++)
+      {
+         int[] available = new int[runtimes.length];
+         int availableCount = 0;
+         for (int runtime = 0; runtime < runtimes.length; runtime++)
+         {
+            int pair = mission * runtimes.length + runtime;
+            if (missionHasRuntime[pair])
+            {
+               available[availableCount++] = runtime;
+            }
+            int[] pairVersions = new int[versions.length];
+            int versionCount = 0;
+            for (int v = 0; v < versions.length; v++)
+            {
+               if (this.boosters[pair * versions.length + v] != null)
+               {
+                  pairVersions[versionCount++] = v;
+               }
+            }
+            versionsByMissionAndRuntime[pair] = Arrays.copyOf(pairVersions, versionCount);
+         }
+         runtimesByMission[mission] = Arrays.copyOf(available, availableCount);
+      }
+      this.missionList = Collections.unmodifiableList(Arrays.asList(missions));
+      this.runtimeLists = new ArrayList<>(missions.length);
+      for (int[] missionRuntimes : runtimesByMission)
+      {
+         runtimeLists.add(toIds(missionRuntimes, runtimes));
+      }
+      this.versionLists = new ArrayList<>(versionsByMissionAndRuntime.length);
+      for (int[] pairVersions : versionsByMissionAndRuntime)
+      {
+         versionLists.add(toIds(pairVersions, versions));
+      }
+   }
+
+   /**
+    * @return the version of the catalog this index was built from
+    */
+   public long getVersion()
+   {
+      return version;
+   }
+
+   /**
+    * @return the number of boosters in this index
+    */
+   public int size()
+   {
+      return size;
+   }
+
+   /**
+    * @return the ids of all the missions, in catalog order
+    */
+   public List<String> getMissions()
+   {
+      return missionList;
+   }
+
+   /**
+    * @return the ids of the runtimes available for the given mission, in catalog order
+    */
+   public List<String> getRuntimes(String missionId)
+   {
+      Integer mission = missionIds.get(missionId);
+      if (mission == null)
+      {
+         return Collections.emptyList();
+      }
+      return runtimeLists.get(mission);
+   }
+
+   /**
+    * @return the ids of the versions available for the given mission and runtime, in catalog order. Contains null if
+    *         a booster without version exists
+    */
+   public List<String> getVersions(String missionId, String runtimeId)
+   {
+      int pair = getPair(missionId, runtimeId);
+      if (pair < 0)
+      {
+         return Collections.emptyList();
+      }
+      return versionLists.get(pair);
+   }
+
+   /**
+    * @return the booster for the given mission, runtime and version (null for a booster without version), or null if
+    *         it doesn't exist
+    */
+   @SuppressWarnings("unchecked")
+   public B getBooster(String missionId, String runtimeId, String versionId)
+   {
+      int pair = getPair(missionId, runtimeId);
+      Integer boosterVersion = versionIds.get(versionId);
+      if (pair < 0 || boosterVersion == null)
+      {
+         return null;
+      }
+      return (B) boosters[pair * versions.length + boosterVersion];
+   }
+
+   private int getPair(String missionId, String runtimeId)
+   {
+      Integer mission = missionIds.get(missionId);
+      Integer runtime = runtimeIds.get(runtimeId);
+      if (mission == null || runtime == null)
+      {
+         return -1;
+      }
+      return mission * runtimes.length + runtime;
+   }
+
+   private static List<String> toIds(int[] indexes, String[] ids)
+   {
+      List<String> list = new ArrayList<>(indexes.length);
+      for (int index : indexes)
+      {
+         list.add(ids[index]);
+      }
+      return Collections.unmodifiableList(list);
+   }
+}
@@ -0,0 +1,384 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.catalog;
+
+import static io.openshift.launchpad.backend.util.Environment.getEnv;
+import static io.openshift.launchpad.backend.util.Environment.getLong;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.openshift.booster.catalog.Booster;
+import io.openshift.booster.catalog.BoosterCatalogService;
+import io.openshift.launchpad.BoosterCatalogFactory;
+
+/**
+ * Holds the {@link BoosterIndex} of the default booster catalog. The index is built on first use once the catalog is
+ * loaded, then rebuilt in the background on every reindex and replaced as a whole once the new catalog is loaded, so
+ * readers always see a consistent index and never wait for a reload.
+ */
+@ApplicationScoped
+public class BoosterIndexService
+{
+   private static final Logger log = Logger.getLogger(BoosterIndexService.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_CATALOG_REINDEX_DEBOUNCE_MS =
+            "LAUNCHPAD_BACKEND_CATALOG_REINDEX_DEBOUNCE_MS";
+   private static final long DEFAULT_REINDEX_DEBOUNCE_MS = 2000;
+   private static final String LAUNCHPAD_BACKEND_CATALOG_VERSION_MARKER = "LAUNCHPAD_BACKEND_CATALOG_VERSION_MARKER";
+   private static final String LAUNCHPAD_BACKEND_CATALOG_VERSION_POLL_SECONDS =
+            "LAUNCHPAD_BACKEND_CATALOG_VERSION_POLL_SECONDS";
+   private static final String LAUNCHPAD_BACKEND_CATALOG_REFRESH_STAGGER_SECONDS =
+            "LAUNCHPAD_BACKEND_CATALOG_REFRESH_STAGGER_SECONDS";
+   private static final long CATALOG_LOAD_TIMEOUT_MINUTES = 10;
+
+   private final AtomicLong catalogVersion = new AtomicLong();
+   private final Object indexLock = new Object();
+   private final AtomicBoolean fullReload = new AtomicBoolean();
+   private volatile BoosterIndex<Booster> index;
+   /**
+    * Identifies the boosters of the loaded catalog, null while the catalog is reloading
+    */
+   private volatile String catalogKey;
+   private CatalogRepository catalogRepository;
+   private ScheduledExecutorService scheduler;
+   private ReindexCoordinator reindexCoordinator;
+   private CatalogVersionWatcher versionWatcher;
+
+   @Inject
+   private BoosterCatalogFactory boosterCatalogFactory;
+
+   @PostConstruct
+   void init()
+   {
+      catalogRepository = CatalogRepository.fromEnvironment();
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "catalog-reindex");
+         thread.setDaemon(true);
+         return thread;
+      });
+      // Clone the catalog repository ahead of time, so the first reindex only fetches the new commits
+      scheduler.execute(() -> {
+         try
+         {
+            catalogRepository.update();
+         }
+         catch (IOException e)
+         {
+            log.log(Level.WARNING, "Could not fetch the catalog repository", e);
+         }
+      });
+      reindexCoordinator = new ReindexCoordinator(this::reindex,
+               getLong(LAUNCHPAD_BACKEND_CATALOG_REINDEX_DEBOUNCE_MS, DEFAULT_REINDEX_DEBOUNCE_MS), scheduler);
+      // Replicas sharing a volume pick up the reindexes requested on any of them
+      String marker = getEnv(LAUNCHPAD_BACKEND_CATALOG_VERSION_MARKER);
+      if (marker != null)
+      {
+         String replicaId = getEnv("HOSTNAME");
+         versionWatcher = new CatalogVersionWatcher(Paths.get(marker), replicaId != null ? replicaId : "",
+                  TimeUnit.SECONDS.toMillis(getLong(LAUNCHPAD_BACKEND_CATALOG_REFRESH_STAGGER_SECONDS, 30)),
+                  this::refresh, scheduler);
+         versionWatcher.start(getLong(LAUNCHPAD_BACKEND_CATALOG_VERSION_POLL_SECONDS, 10), TimeUnit.SECONDS);
+      }
+   }
+
+   /**
+    * Stops the reindexes and the polling of the catalog version marker
+    */
+   @PreDestroy
+   void destroy()
+   {
+      scheduler.shutdownNow();
+   }
+
+   /**
+    * @return the index of the current catalog, empty while the catalog loaded at startup is loading. While a reindex
+    *         is running, the index of the previous catalog
+    */
+   public BoosterIndex<Booster> getIndex()
+   {
+      BoosterIndex<Booster> current = index;
+      if (current == null)
+      {
+         current = buildOnFirstUse();
+      }
+      return current;
+   }
+
+   /**
+    * Waits for the catalog loaded at startup, for up to {@value #CATALOG_LOAD_TIMEOUT_MINUTES} minutes
+    *
+    * @return the index of the current catalog, empty if it could not be loaded
+    */
+   public BoosterIndex<Booster> awaitIndex()
+   {
+      if (index == null)
+      {
+         try
+         {
+            awaitLoaded(boosterCatalogFactory.getDefaultCatalog());
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+         }
+      }
+      return getIndex();
+   }
+
+   /**
+    * @return the version of the current catalog, incremented on every reindex
+    */
+   public long getCatalogVersion()
+   {
+      return catalogVersion.get();
+   }
+
+   /**
+    * @return a key identifying the boosters of the loaded catalog (their mission, runtime, version, repository and
+    *         branch), the same on every replica that loaded the same catalog. Null until the catalog loaded at startup
+    *         is indexed (on first use), and from the moment a reindex resets the catalog until the reloaded catalog is
+    *         indexed
+    */
+   public String getCatalogKey()
+   {
+      if (index == null)
+      {
+         // The catalog loaded at startup is indexed on first use
+         getIndex();
+      }
+      return catalogKey;
+   }
+
+   /**
+    * Requests a reindex of the catalog. Requests received in a burst (LAUNCHPAD_BACKEND_CATALOG_REINDEX_DEBOUNCE_MS,
+    * 2000 by default) or while a reindex is running are coalesced, and the merged reindex is a full reload if any of
+    * them asked for one. When LAUNCHPAD_BACKEND_CATALOG_VERSION_MARKER is defined, the request is also published to
+    * the other replicas.
+    *
+    * @param full true to reload the whole catalog even if no booster descriptor changed, to pick up the new commits of
+    *           the booster repositories
+    * @return true if a reindex was scheduled, false if the request was merged into a pending one
+    */
+   public boolean requestReindex(boolean full)
+   {
+      if (versionWatcher != null)
+      {
+         try
+         {
+            versionWatcher.publish(full);
+         }
+         catch (IOException e)
+         {
+            log.log(Level.WARNING, "Could not publish the catalog version to the other replicas", e);
+         }
+      }
+      return refresh(full);
+   }
+
+   private boolean refresh(boolean full)
+   {
+      if (full)
+      {
+         fullReload.set(true);
+      }
+      return reindexCoordinator.trigger();
+   }
+
+   /**
+    * @return the coordinator of the reindex requests, with the request and reindex counts
+    */
+   public ReindexCoordinator getReindexCoordinator()
+   {
+      return reindexCoordinator;
+   }
+
+   /**
+    * Fetches the new commits of the catalog repository and reloads the catalog if a booster descriptor changed or a
+    * full reload was requested. Commits of the booster repositories themselves are not tracked, so a booster whose
+    * branch moved is only picked up by a full reload. The index of the new catalog is built on the calling thread once
+    * it is loaded, then replaces the current one.
+    */
+   public synchronized void reindex()
+   {
+      boolean full = fullReload.getAndSet(false);
+      try
+      {
+         List<String> changed = catalogRepository.update();
+         if (!full && changed != null && changed.isEmpty())
+         {
+            log.info("No booster descriptor changed, keeping the current catalog");
+            return;
+         }
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Could not fetch the catalog changes, reloading the whole catalog", e);
+      }
+      catalogKey = null;
+      boosterCatalogFactory.reset();
+      long version = catalogVersion.incrementAndGet();
+      BoosterCatalogService catalog = boosterCatalogFactory.getDefaultCatalog();
+      BoosterIndex<Booster> built = null;
+      try
+      {
+         if (awaitLoaded(catalog))
+         {
+            built = build(catalog, version);
+         }
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      if (built == null)
+      {
+         log.warning("The reloaded catalog is not loaded yet, it will be indexed on first use once it is");
+      }
+      index = built;
+      catalogKey = built != null ? getFingerprint(built) : null;
+   }
+
+   /**
+    * Waits for the given catalog to be loaded
+    *
+    * @return true if the catalog is loaded, false if it failed or is still loading after
+    *         {@value #CATALOG_LOAD_TIMEOUT_MINUTES} minutes
+    */
+   private static boolean awaitLoaded(BoosterCatalogService catalog) throws InterruptedException
+   {
+      try
+      {
+         catalog.index().get(CATALOG_LOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+         return true;
+      }
+      catch (ExecutionException e)
+      {
+         log.log(Level.WARNING, "Could not load the booster catalog", e.getCause());
+         return false;
+      }
+      catch (TimeoutException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * @return true if the given catalog is completely loaded
+    */
+   private static boolean isLoaded(BoosterCatalogService catalog)
+   {
+      CompletableFuture<Set<Booster>> loading = catalog.index();
+      return loading.isDone() && !loading.isCompletedExceptionally();
+   }
+
+   private BoosterIndex<Booster> buildOnFirstUse()
+   {
+      synchronized (indexLock)
+      {
+         if (index != null)
+         {
+            return index;
+         }
+         BoosterCatalogService catalog = boosterCatalogFactory.getDefaultCatalog();
+         // A catalog still loading only holds part of the boosters, don't index it
+         if (!isLoaded(catalog))
+         {
+            return build(Collections.emptySet(), catalogVersion.get());
+         }
+         BoosterIndex<Booster> built = build(catalog, catalogVersion.get());
+         index = built;
+         catalogKey = getFingerprint(built);
+         return built;
+      }
+   }
+
+   private static String getFingerprint(BoosterIndex<Booster> index)
+   {
+      // Sorted, so the key doesn't depend on the order the catalog was read in
+      Set<String> boosters = new TreeSet<>();
+      for (String mission : index.getMissions())
+      {
+         for (String runtime : index.getRuntimes(mission))
+         {
+            for (String version : index.getVersions(mission, runtime))
+            {
+               Booster booster = index.getBooster(mission, runtime, version);
+               boosters.add(mission + "/" + runtime + "/" + version + " " + booster.getGithubRepo() + "#"
+                        + booster.getGitRef());
+            }
+         }
+      }
+      try
+      {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         for (String booster : boosters)
+         {
+            digest.update((booster + "\n").getBytes(StandardCharsets.UTF_8));
+         }
+         StringBuilder key = new StringBuilder();
+         for (byte b : digest.digest())
+         {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+         }
+         return key.toString();
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   private static BoosterIndex<Booster> build(BoosterCatalogService catalog, long version)
+   {
+      long start = System.currentTimeMillis();
+      BoosterIndex<Booster> built = build(catalog.getBoosters(), version);
+      log.info("Indexed " + built.size() + " boosters in " + (System.currentTimeMillis() - start) + " ms");
+      return built;
+   }
+
+   private static BoosterIndex<Booster> build(Collection<Booster> boosters, long version)
+   {
+      return new BoosterIndex<>(version, boosters,
+               booster -> booster.getMission().getId(),
+               booster -> booster.getRuntime().getId(),
+               booster -> booster.getVersion() != null ? booster.getVersion().getId() : null);
+   }
+
+}
@@ -0,0 +1,166 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.catalog;
+
+import static io.openshift.launchpad.backend.util.Environment.getEnv;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import io.openshift.launchpad.backend.ForgeInitializer;
+
+/**
+ * A persistent bare clone of the booster catalog repository, updated with <code>git fetch</code> so only the new
+ * commits are transferred, and telling which booster descriptors changed since the previous update
+ */
+public class CatalogRepository
+{
+   private static final Logger log = Logger.getLogger(CatalogRepository.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_CATALOG_GIT_REPOSITORY = "LAUNCHPAD_BACKEND_CATALOG_GIT_REPOSITORY";
+   private static final String LAUNCHPAD_BACKEND_CATALOG_GIT_REF = "LAUNCHPAD_BACKEND_CATALOG_GIT_REF";
+   private static final String LAUNCHPAD_BACKEND_CATALOG_CLONE_DIR = "LAUNCHPAD_BACKEND_CATALOG_CLONE_DIR";
+   /**
+    * The catalog the launchpad addon loads when LAUNCHPAD_BACKEND_CATALOG_GIT_REPOSITORY is not set, also the
+    * <code>catalog.repository</code> of the pom
+    */
+   private static final String DEFAULT_CATALOG_REPOSITORY = "https://github.com/fabric8-launch/booster-catalog.git";
+   private static final String DEFAULT_CATALOG_REF = "master";
+   private static final long GIT_TIMEOUT_MINUTES = 5;
+
+   private final String repository;
+   private final String ref;
+   private final Path directory;
+
+   /**
+    * @param repository the URL of the catalog repository
+    * @param ref the branch of the catalog
+    * @param directory where the clone is kept
+    */
+   public CatalogRepository(String repository, String ref, Path directory)
+   {
+      this.repository = repository;
+      this.ref = ref;
+      this.directory = directory;
+   }
+
+   /**
+    * Creates the {@link CatalogRepository} of the repository and branch the catalog is read from
+    * (LAUNCHPAD_BACKEND_CATALOG_GIT_REPOSITORY and LAUNCHPAD_BACKEND_CATALOG_GIT_REF, defaulting to the ones the
+    * launchpad addon uses), cloned in
+    * LAUNCHPAD_BACKEND_CATALOG_CLONE_DIR (defaults to <code>booster-catalog</code> in the temp directory)
+    */
+   public static CatalogRepository fromEnvironment()
+   {
+      String directory = getEnv(LAUNCHPAD_BACKEND_CATALOG_CLONE_DIR, null);
+      return new CatalogRepository(
+               getEnv(LAUNCHPAD_BACKEND_CATALOG_GIT_REPOSITORY, DEFAULT_CATALOG_REPOSITORY),
+               getEnv(LAUNCHPAD_BACKEND_CATALOG_GIT_REF, DEFAULT_CATALOG_REF),
+               directory != null ? Paths.get(directory)
+                        : ForgeInitializer.getRoot().resolveSibling("booster-catalog"));
+   }
+
+   /**
+    * Fetches the new commits of the catalog branch, cloning the repository the first time
+    *
+    * @return the descriptors changed since the previous update, or null if the repository was just cloned (everything
+    *         changed)
+    */
+   public synchronized List<String> update() throws IOException
+   {
+      if (!Files.exists(directory.resolve("HEAD")))
+      {
+         Files.createDirectories(directory);
+         git(directory.getParent(), "clone", "--bare", "--single-branch", "--branch", ref, repository,
+                  directory.toString());
+         log.info("Cloned " + repository + " in " + directory);
+         return null;
+      }
+      String previous = git(directory, "rev-parse", "refs/heads/" + ref).trim();
+      git(directory, "fetch", "--quiet", repository, "+refs/heads/" + ref + ":refs/heads/" + ref);
+      String current = git(directory, "rev-parse", "refs/heads/" + ref).trim();
+      if (previous.equals(current))
+      {
+         return Collections.emptyList();
+      }
+      List<String> descriptors = new ArrayList<>();
+      for (String path : git(directory, "diff", "--name-only", previous, current).split("\n"))
+      {
+         if (isDescriptor(path))
+         {
+            descriptors.add(path);
+         }
+      }
+      log.info("Catalog updated from " + previous + " to " + current + ", " + descriptors.size()
+               + " descriptors changed");
+      return descriptors;
+   }
+
+   /**
+    * @return true if the file at the given path describes boosters, missions or runtimes
+    */
+   static boolean isDescriptor(String path)
+   {
+      return path.endsWith(".yaml") || path.endsWith(".yml") || path.endsWith(".json");
+   }
+
+   private static String git(Path workingDirectory, String... args) throws IOException
+   {
+      List<String> command = new ArrayList<>();
+      command.add("git");
+      command.addAll(Arrays.asList(args));
+      // The output goes to a file rather than a pipe, so a hung command can't block the wait for it
+      Path output = Files.createTempFile("git", ".out");
+      try
+      {
+         Process process = new ProcessBuilder(command).directory(workingDirectory.toFile()).redirectErrorStream(true)
+                  .redirectOutput(output.toFile()).start();
+         try
+         {
+            if (!process.waitFor(GIT_TIMEOUT_MINUTES, TimeUnit.MINUTES))
+            {
+               process.destroyForcibly();
+               throw new IOException("Timed out running " + command);
+            }
+         }
+         catch (InterruptedException e)
+         {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running " + command, e);
+         }
+         String result = new String(Files.readAllBytes(output), StandardCharsets.UTF_8);
+         if (process.exitValue() != 0)
+         {
+            throw new IOException(command + " failed: " + result);
+         }
+         return result;
+      }
+      finally
+      {
+         Files.deleteIfExists(output);
+      }
+   }
+}
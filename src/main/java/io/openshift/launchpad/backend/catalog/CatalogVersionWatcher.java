@@ -0,0 +1,178 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.catalog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Propagates catalog reindexes across replicas through a version marker file on a volume shared by all of them. The
+ * replica receiving a reindex request publishes a new version, the other replicas poll the marker and refresh their
+ * catalog after a delay derived from their id, so they don't all reload the catalog at once. A version published for a
+ * full reload is marked as such, so the other replicas reload their whole catalog too.
+ */
+public class CatalogVersionWatcher
+{
+   private static final Logger log = Logger.getLogger(CatalogVersionWatcher.class.getName());
+   private static final String FULL_RELOAD = " full";
+
+   private final Path marker;
+   private final Consumer<Boolean> refresh;
+   private final long staggerDelayMillis;
+   private final ScheduledExecutorService scheduler;
+
+   private String seenVersion;
+
+   /**
+    * @param marker the version marker file
+    * @param replicaId the id of this replica, the pod name for instance
+    * @param staggerMillis the window the refreshes of the replicas are spread over
+    * @param refresh refreshes the catalog of this replica
+    * @param scheduler runs the polling and the refreshes
+    */
+   public CatalogVersionWatcher(Path marker, String replicaId, long staggerMillis, Runnable refresh,
+            ScheduledExecutorService scheduler)
+   {
+      this(marker, replicaId, staggerMillis, full -> refresh.run(), scheduler);
+   }
+
+   /**
+    * @param marker the version marker file
+    * @param replicaId the id of this replica, the pod name for instance
+    * @param staggerMillis the window the refreshes of the replicas are spread over
+    * @param refresh refreshes the catalog of this replica, given true if a full reload was requested
+    * @param scheduler runs the polling and the refreshes
+    */
+   public CatalogVersionWatcher(Path marker, String replicaId, long staggerMillis, Consumer<Boolean> refresh,
+            ScheduledExecutorService scheduler)
+   {
+      this.marker = marker;
+      this.refresh = refresh;
+      this.staggerDelayMillis = staggerMillis > 0 ? Math.floorMod(replicaId.hashCode(), staggerMillis) : 0;
+      this.scheduler = scheduler;
+      this.seenVersion = readVersion();
+   }
+
+   /**
+    * Polls the marker at the given interval
+    */
+   public void start(long interval, TimeUnit unit)
+   {
+      scheduler.scheduleWithFixedDelay(() -> {
+         try
+         {
+            check();
+         }
+         catch (RuntimeException e)
+         {
+            log.log(Level.WARNING, "Error while checking the catalog version marker " + marker, e);
+         }
+      }, interval, interval, unit);
+   }
+
+   /**
+    * Publishes a new catalog version, to be picked up by the other replicas
+    */
+   public void publish() throws IOException
+   {
+      publish(false);
+   }
+
+   /**
+    * Publishes a new catalog version, to be picked up by the other replicas
+    *
+    * @param full true if the other replicas must reload their whole catalog, even if no booster descriptor changed
+    */
+   public synchronized void publish(boolean full) throws IOException
+   {
+      String version = UUID.randomUUID().toString() + (full ? FULL_RELOAD : "");
+      Path parent = marker.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      Path temp = Files.createTempFile(parent, ".catalog-version", ".tmp");
+      try
+      {
+         Files.write(temp, version.getBytes(StandardCharsets.UTF_8));
+         Files.move(temp, marker, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      }
+      finally
+      {
+         Files.deleteIfExists(temp);
+      }
+      seenVersion = version;
+   }
+
+   /**
+    * Reads the marker and schedules a refresh if another replica published a new version
+    *
+    * @return true if a refresh was scheduled
+    */
+   public synchronized boolean check()
+   {
+      String version = readVersion();
+      if (version == null || version.equals(seenVersion))
+      {
+         return false;
+      }
+      seenVersion = version;
+      log.info("Catalog version " + version + " published, refreshing in " + staggerDelayMillis + " ms");
+      boolean full = version.endsWith(FULL_RELOAD);
+      scheduler.schedule(() -> refresh.accept(full), staggerDelayMillis, TimeUnit.MILLISECONDS);
+      return true;
+   }
+
+   /**
+    * @return the delay of the refreshes of this replica after a new version is seen
+    */
+   public long getStaggerDelayMillis()
+   {
+      return staggerDelayMillis;
+   }
+
+   /**
+    * @return the last catalog version seen by this replica, null if none was ever published
+    */
+   public synchronized String getSeenVersion()
+   {
+      return seenVersion;
+   }
+
+   private String readVersion()
+   {
+      try
+      {
+         return new String(Files.readAllBytes(marker), StandardCharsets.UTF_8).trim();
+      }
+      catch (NoSuchFileException e)
+      {
+         return null;
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Could not read the catalog version marker " + marker, e);
+         return seenVersion;
+      }
+   }
+}
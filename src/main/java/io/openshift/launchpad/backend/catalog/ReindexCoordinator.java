@@ -0,0 +1,138 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.catalog;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces reindex triggers: a trigger schedules a reindex after a debounce delay, and the triggers received until it
+ * starts merge into it. Triggers received while a reindex is running merge into a single follow-up reindex.
+ */
+public class ReindexCoordinator
+{
+   private static final Logger log = Logger.getLogger(ReindexCoordinator.class.getName());
+
+   private final Runnable reindex;
+   private final long debounceMillis;
+   private final ScheduledExecutorService scheduler;
+
+   private boolean pending;
+   private boolean running;
+   private long triggerCount;
+   private long reindexCount;
+
+   /**
+    * @param reindex the reindex to run
+    * @param debounceMillis how long to wait for more triggers before running the reindex
+    * @param scheduler runs the reindex
+    */
+   public ReindexCoordinator(Runnable reindex, long debounceMillis, ScheduledExecutorService scheduler)
+   {
+      this.reindex = reindex;
+      this.debounceMillis = debounceMillis;
+      this.scheduler = scheduler;
+   }
+
+   /**
+    * Requests a reindex
+    *
+    * @return true if a reindex was scheduled, false if the trigger was merged into an already pending one
+    */
+   public synchronized boolean trigger()
+   {
+      triggerCount++;
+      if (pending)
+      {
+         return false;
+      }
+      pending = true;
+      // A running reindex schedules the follow-up when done
+      if (!running)
+      {
+         schedule();
+      }
+      return true;
+   }
+
+   /**
+    * @return the number of triggers received
+    */
+   public synchronized long getTriggerCount()
+   {
+      return triggerCount;
+   }
+
+   /**
+    * @return the number of reindexes run
+    */
+   public synchronized long getReindexCount()
+   {
+      return reindexCount;
+   }
+
+   /**
+    * @return true if a reindex is waiting to run
+    */
+   public synchronized boolean isPending()
+   {
+      return pending;
+   }
+
+   /**
+    * @return true if a reindex is running
+    */
+   public synchronized boolean isRunning()
+   {
+      return running;
+   }
+
+   private void schedule()
+   {
+      scheduler.schedule(this::run, debounceMillis, TimeUnit.MILLISECONDS);
+   }
+
+   private void run()
+   {
+      synchronized (this)
+      {
+         pending = false;
+         running = true;
+      }
+      try
+      {
+         reindex.run();
+      }
+      catch (RuntimeException e)
+      {
+         log.log(Level.WARNING, "Error while reindexing the catalog", e);
+      }
+      finally
+      {
+         synchronized (this)
+         {
+            running = false;
+            reindexCount++;
+            if (pending)
+            {
+               schedule();
+            }
+         }
+      }
+   }
+}
@@ -8,19 +8,21 @@
 package io.openshift.launchpad.backend.cdi;
 
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
 
 import org.jboss.forge.service.producer.FurnaceProducer;
 import org.jboss.forge.service.producer.FurnaceServiceProducer;
 
+import io.openshift.launchpad.backend.StartupTimer;
+
 /**
  *
  * @author <a href="mailto:ggastald@redhat.com">George Gastaldi</a>
  */
 public class LaunchpadExtension implements Extension
 {
-
    public void vetoFurnaceProducer(@Observes ProcessAnnotatedType<FurnaceProducer> furnaceProducer)
    {
       furnaceProducer.veto();
@@ -31,4 +33,8 @@ public class LaunchpadExtension implements Extension
       furnaceServiceProducer.veto();
    }
 
+   public void deploymentValidated(@Observes AfterDeploymentValidation event)
+   {
+      StartupTimer.mark("CDI deployment");
+   }
 }
@@ -0,0 +1,120 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.openshift.launchpad.backend.log.AccessLogEntry.Stage;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Emits the Launchpad events and takes recordings with JDK Flight Recorder, when the JVM supports it (Java 11 or 8u262
+ * and later). On other JVMs, no event is emitted and recordings are not available.
+ */
+public class FlightRecorders
+{
+   private static final Stage NO_STAGE = () -> {
+   };
+   private static final boolean AVAILABLE = isFlightRecorderPresent();
+   private static final AtomicBoolean recording = new AtomicBoolean();
+
+   /**
+    * @return true if JDK Flight Recorder is available in this JVM
+    */
+   public static boolean isAvailable()
+   {
+      return AVAILABLE;
+   }
+
+   /**
+    * Starts a stage event, committed when the returned {@link Stage} is closed. Returns a no-op {@link Stage} when no
+    * recording is enabled for it.
+    *
+    * @param stage the name of the stage
+    * @param command the command being run, may be null
+    */
+   public static Stage beginStage(String stage, String command)
+   {
+      if (!AVAILABLE)
+      {
+         return NO_STAGE;
+      }
+      StageEvent event = new StageEvent();
+      if (!event.isEnabled())
+      {
+         return NO_STAGE;
+      }
+      event.stage = stage;
+      event.command = command;
+      event.begin();
+      return event::commit;
+   }
+
+   /**
+    * Records the JVM with the <code>profile</code> settings for the given time and writes the recording to the given
+    * file. Only one recording can run at a time.
+    *
+    * @return false if a recording is already running, true once the recording is written
+    * @throws IllegalStateException if JDK Flight Recorder is not available
+    */
+   public static boolean record(long duration, TimeUnit unit, Path destination)
+            throws IOException, InterruptedException
+   {
+      if (!AVAILABLE)
+      {
+         throw new IllegalStateException("JDK Flight Recorder is not available in this JVM");
+      }
+      if (!recording.compareAndSet(false, true))
+      {
+         return false;
+      }
+      try (Recording jfr = new Recording(Configuration.getConfiguration("profile")))
+      {
+         jfr.setName("launchpad");
+         jfr.start();
+         unit.sleep(duration);
+         jfr.stop();
+         jfr.dump(destination);
+         return true;
+      }
+      catch (ParseException e)
+      {
+         throw new IOException("Cannot read the profile settings", e);
+      }
+      finally
+      {
+         recording.set(false);
+      }
+   }
+
+   private static boolean isFlightRecorderPresent()
+   {
+      try
+      {
+         Class.forName("jdk.jfr.FlightRecorder");
+         return jdk.jfr.FlightRecorder.isAvailable();
+      }
+      catch (ClassNotFoundException | LinkageError e)
+      {
+         return false;
+      }
+   }
+}
@@ -0,0 +1,39 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A stage of a request or launch (controller creation, wizard step replay, execution, zip, Mission Control upload or
+ * cleanup), recorded by JDK Flight Recorder
+ */
+@Name("io.openshift.launchpad.Stage")
+@Label("Launchpad Stage")
+@Category("Launchpad")
+@Description("A stage of a Launchpad request or launch")
+class StageEvent extends Event
+{
+   @Label("Stage")
+   String stage;
+
+   @Label("Command")
+   String command;
+}
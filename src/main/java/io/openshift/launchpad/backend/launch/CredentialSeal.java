@@ -0,0 +1,96 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Encrypts the credentials of a launch with AES-GCM before they are written to disk, so only an instance configured
+ * with the same secret can read them back
+ */
+class CredentialSeal
+{
+   private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+   private static final int IV_LENGTH = 12;
+   private static final int TAG_BITS = 128;
+
+   private final SecretKeySpec key;
+   private final SecureRandom random = new SecureRandom();
+
+   CredentialSeal(byte[] secret)
+   {
+      try
+      {
+         // AES-128, which every Java 8 runtime supports
+         byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret);
+         this.key = new SecretKeySpec(Arrays.copyOf(digest, 16), "AES");
+      }
+      catch (GeneralSecurityException e)
+      {
+         throw new IllegalStateException("Error while deriving the journal key", e);
+      }
+   }
+
+   String seal(String value)
+   {
+      try
+      {
+         byte[] iv = new byte[IV_LENGTH];
+         random.nextBytes(iv);
+         Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+         cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+         byte[] encrypted = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+         return Base64.getEncoder().encodeToString(
+                  ByteBuffer.allocate(iv.length + encrypted.length).put(iv).put(encrypted).array());
+      }
+      catch (GeneralSecurityException e)
+      {
+         throw new IllegalStateException("Error while sealing credentials", e);
+      }
+   }
+
+   /**
+    * @return the value given to {@link #seal(String)}, or null if it was sealed with another secret or is corrupted
+    */
+   String open(String sealed)
+   {
+      try
+      {
+         byte[] bytes = Base64.getDecoder().decode(sealed);
+         if (bytes.length <= IV_LENGTH)
+         {
+            return null;
+         }
+         Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+         cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, bytes, 0, IV_LENGTH));
+         return new String(cipher.doFinal(bytes, IV_LENGTH, bytes.length - IV_LENGTH), StandardCharsets.UTF_8);
+      }
+      catch (GeneralSecurityException | IllegalArgumentException e)
+      {
+         return null;
+      }
+   }
+}
@@ -0,0 +1,259 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import static io.openshift.launchpad.backend.util.JsonFactory.createObjectBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.core.Response;
+
+/**
+ * A launch running in the background. Every stage is recorded as an event, so clients can (re)connect at any time and
+ * receive the events they missed.
+ */
+public class LaunchJob implements LaunchListener
+{
+   public static final String GENERATION_STARTED = "generation-started";
+   public static final String GENERATION_FINISHED = "generation-finished";
+   public static final String ARCHIVE_CREATED = "archive-created";
+   public static final String UPLOAD_PROGRESS = "upload-progress";
+   public static final String COMPLETED = "completed";
+   public static final String FAILED = "failed";
+
+   private final String id;
+   private final List<Event> events = new ArrayList<>();
+   private final List<Waiter> waiters = new ArrayList<>();
+   private volatile long finishedAt;
+
+   public LaunchJob(String id)
+   {
+      this.id = id;
+   }
+
+   public String getId()
+   {
+      return id;
+   }
+
+   @Override
+   public void generationStarted()
+   {
+      publish(GENERATION_STARTED, createObjectBuilder());
+   }
+
+   @Override
+   public void generationFinished()
+   {
+      publish(GENERATION_FINISHED, createObjectBuilder());
+   }
+
+   @Override
+   public void archiveCreated(long size)
+   {
+      publish(ARCHIVE_CREATED, createObjectBuilder().add("size", size));
+   }
+
+   @Override
+   public void uploadProgress(long bytes, long total)
+   {
+      publish(UPLOAD_PROGRESS, createObjectBuilder().add("bytes", bytes).add("total", total));
+   }
+
+   /**
+    * Records the final response of this launch
+    */
+   public void completed(Response response)
+   {
+      JsonObjectBuilder data = createObjectBuilder().add("status", response.getStatus());
+      if (response.hasEntity())
+      {
+         data.add("response", String.valueOf(response.getEntity()));
+      }
+      finish(COMPLETED, data);
+   }
+
+   /**
+    * Records that this launch could not be completed
+    */
+   public void failed(Throwable cause)
+   {
+      finish(FAILED, createObjectBuilder().add("message", String.valueOf(cause.getMessage())));
+   }
+
+   /**
+    * @return true if {@link #completed(Response)} or {@link #failed(Throwable)} was called
+    */
+   public boolean isFinished()
+   {
+      return finishedAt != 0;
+   }
+
+   /**
+    * @return the time in millis when this job finished, or 0 if it is still running
+    */
+   public long getFinishedAt()
+   {
+      return finishedAt;
+   }
+
+   /**
+    * Calls the given callback with the events published from the given index, as soon as there is at least one of
+    * them or this job is finished. The callback is called on the calling thread if they are already available,
+    * otherwise on the thread publishing the next event. It is never called more than once.
+    */
+   public void awaitEvents(int index, Consumer<List<Event>> callback)
+   {
+      List<Event> available;
+      synchronized (this)
+      {
+         if (index >= events.size() && !isFinished())
+         {
+            waiters.add(new Waiter(index, callback));
+            return;
+         }
+         available = eventsFrom(index);
+      }
+      callback.accept(available);
+   }
+
+   /**
+    * @return the events published so far
+    */
+   public synchronized List<Event> getEvents()
+   {
+      return new ArrayList<>(events);
+   }
+
+   /**
+    * Records an event published by the instance running this launch, as read back from the {@link LaunchJournal}
+    *
+    * @param last true if this event finished the launch
+    */
+   synchronized void restore(String name, JsonObject data, boolean last)
+   {
+      events.add(new Event(events.size(), name, data));
+      if (last)
+      {
+         finishedAt = System.currentTimeMillis();
+      }
+   }
+
+   /**
+    * Unregisters a callback given to {@link #awaitEvents(int, Consumer)}, if it was not called yet
+    */
+   public synchronized void cancel(Consumer<List<Event>> callback)
+   {
+      waiters.removeIf(waiter -> waiter.callback == callback);
+   }
+
+   private void finish(String name, JsonObjectBuilder data)
+   {
+      List<Runnable> notifications;
+      synchronized (this)
+      {
+         events.add(new Event(events.size(), name, data.build()));
+         finishedAt = System.currentTimeMillis();
+         notifications = releaseWaiters();
+      }
+      notifications.forEach(Runnable::run);
+   }
+
+   private void publish(String name, JsonObjectBuilder data)
+   {
+      List<Runnable> notifications;
+      synchronized (this)
+      {
+         events.add(new Event(events.size(), name, data.build()));
+         notifications = releaseWaiters();
+      }
+      notifications.forEach(Runnable::run);
+   }
+
+   /**
+    * Removes the waiters whose events are now available. They are notified once the lock is released.
+    */
+   private List<Runnable> releaseWaiters()
+   {
+      List<Runnable> notifications = new ArrayList<>();
+      for (Iterator<Waiter> it = waiters.iterator(); it.hasNext();)
+      {
+         Waiter waiter = it.next();
+         if (waiter.index < events.size() || isFinished())
+         {
+            it.remove();
+            List<Event> available = eventsFrom(waiter.index);
+            notifications.add(() -> waiter.callback.accept(available));
+         }
+      }
+      return notifications;
+   }
+
+   private List<Event> eventsFrom(int index)
+   {
+      return index < events.size() ? new ArrayList<>(events.subList(index, events.size())) : Collections.emptyList();
+   }
+
+   private static class Waiter
+   {
+      private final int index;
+      private final Consumer<List<Event>> callback;
+
+      Waiter(int index, Consumer<List<Event>> callback)
+      {
+         this.index = index;
+         this.callback = callback;
+      }
+   }
+
+   /**
+    * A stage of a {@link LaunchJob}
+    */
+   public static class Event
+   {
+      private final int id;
+      private final String name;
+      private final JsonObject data;
+
+      Event(int id, String name, JsonObject data)
+      {
+         this.id = id;
+         this.name = name;
+         this.data = data;
+      }
+
+      public int getId()
+      {
+         return id;
+      }
+
+      public String getName()
+      {
+         return name;
+      }
+
+      public JsonObject getData()
+      {
+         return data;
+      }
+   }
+}
@@ -0,0 +1,65 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of the {@link LaunchJob}s of this instance. Finished jobs are kept for a while so clients can still read
+ * their outcome.
+ */
+public class LaunchJobs
+{
+   private static final long RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+   private final Map<String, LaunchJob> jobs = new ConcurrentHashMap<>();
+
+   /**
+    * Creates a new {@link LaunchJob} with a random id
+    */
+   public LaunchJob create()
+   {
+      return create(UUID.randomUUID().toString());
+   }
+
+   /**
+    * Creates a new {@link LaunchJob} with the given id
+    */
+   public LaunchJob create(String id)
+   {
+      expire();
+      LaunchJob job = new LaunchJob(id);
+      jobs.put(id, job);
+      return job;
+   }
+
+   /**
+    * @return the {@link LaunchJob} with the given id, or null if it does not exist (anymore)
+    */
+   public LaunchJob get(String id)
+   {
+      return jobs.get(id);
+   }
+
+   private void expire()
+   {
+      long threshold = System.currentTimeMillis() - RETENTION_MILLIS;
+      jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < threshold);
+   }
+}
@@ -0,0 +1,492 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import static io.openshift.launchpad.backend.util.JsonFactory.createArrayBuilder;
+import static io.openshift.launchpad.backend.util.JsonFactory.createObjectBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
+import io.openshift.launchpad.backend.util.InstanceLock;
+
+/**
+ * An append-only journal of the launches that are still pending. Each record is a JSON object in its own line. The
+ * journal is loaded on startup, so the launches interrupted by a restart are run again instead of being forgotten.
+ * <p>
+ * Each instance writes its own journal in the journal directory, locked for as long as it runs (see
+ * {@link InstanceLock}). The pending launches of the journals left by the instances which are gone are taken over on
+ * startup, so a launch interrupted by a scale down is run by another instance.
+ * <p>
+ * The inputs and the request headers of a launch are journaled, except the <code>Authorization</code> header, which
+ * is only journaled encrypted with the journal secret. Without a secret, or with another one, an interrupted launch
+ * cannot be run again: it is reported as failed and has to be submitted again.
+ * <p>
+ * The events of each launch are also written to the journal directory once it is finished, so any instance sharing
+ * the directory can report its outcome.
+ * <p>
+ * The journal is best-effort: if the file cannot be written, the error is logged and the launch goes on.
+ */
+public class LaunchJournal
+{
+   private static final Logger log = Logger.getLogger(LaunchJournal.class.getName());
+
+   private static final int COMPACTION_THRESHOLD = 10_000;
+   private static final String PREFIX = "launch-";
+   private static final String EXTENSION = ".journal";
+   private static final String JOBS = "jobs";
+   private static final Pattern JOB_ID = Pattern.compile("[A-Za-z0-9-]+");
+   private static final long JOB_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+   private static final long JOB_EXPIRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+   private static final String OPERATION = "op";
+   private static final String LAUNCH = "launch";
+   private static final String LAUNCHED = "launched";
+   private static final String AUTHORIZATION = "authorization";
+   private static final String CREDENTIALS = "credentials";
+
+   private final Path jobs;
+   private final CredentialSeal seal;
+   private final Map<String, JsonObject> pendingLaunches = new LinkedHashMap<>();
+   private Path file;
+   private InstanceLock lock;
+   private FileChannel channel;
+   private int records;
+   private long expiredAt;
+
+   /**
+    * @param directory the journal directory, shared by the instances
+    * @param secret the secret encrypting the credentials of the launches, null if they are not journaled
+    */
+   public LaunchJournal(Path directory, byte[] secret)
+   {
+      this.jobs = directory.resolve(JOBS);
+      this.seal = secret != null ? new CredentialSeal(secret) : null;
+      try
+      {
+         Files.createDirectories(jobs);
+         lock = InstanceLock.lockInstance(directory, PREFIX);
+         file = directory.resolve(PREFIX + lock.getId(PREFIX) + EXTENSION);
+         load(file);
+         Map<Path, InstanceLock> orphans = loadOrphans(directory);
+         compact();
+         for (Map.Entry<Path, InstanceLock> orphan : orphans.entrySet())
+         {
+            Files.delete(orphan.getKey());
+            orphan.getValue().close();
+         }
+      }
+      catch (IOException | JsonException e)
+      {
+         log.log(Level.SEVERE, "Error while opening launch journal in " + directory + ". Launches will not be journaled",
+                  e);
+      }
+   }
+
+   /**
+    * @return the launches that were submitted but not finished
+    */
+   public synchronized List<PendingLaunch> getPendingLaunches()
+   {
+      List<PendingLaunch> launches = new ArrayList<>();
+      pendingLaunches.values().forEach(record -> launches.add(new PendingLaunch(record, getAuthorization(record))));
+      return launches;
+   }
+
+   /**
+    * @param content the inputs of the launch
+    * @param headers the request headers of the launch
+    */
+   public void launchSubmitted(String id, String commandName, JsonObject content, Map<String, List<String>> headers)
+   {
+      JsonObjectBuilder journaledHeaders = createObjectBuilder();
+      String authorization = null;
+      for (Map.Entry<String, List<String>> header : headers.entrySet())
+      {
+         String name = header.getKey().toLowerCase(Locale.ENGLISH);
+         if (AUTHORIZATION.equals(name))
+         {
+            authorization = header.getValue().isEmpty() ? null : header.getValue().get(0);
+         }
+         else if (!"cookie".equals(name) && !"proxy-authorization".equals(name))
+         {
+            JsonArrayBuilder values = createArrayBuilder();
+            header.getValue().forEach(values::add);
+            journaledHeaders.add(header.getKey(), values);
+         }
+      }
+      JsonObjectBuilder record = createObjectBuilder()
+               .add(OPERATION, LAUNCH)
+               .add("id", id)
+               .add("command", commandName)
+               .add("content", content)
+               .add("headers", journaledHeaders);
+      if (authorization != null && seal != null)
+      {
+         record.add(CREDENTIALS, seal.seal(authorization));
+      }
+      writeJob(id, createArrayBuilder().build(), false);
+      append(record.build());
+   }
+
+   /**
+    * Records the outcome of the given launch, so it is not run again and every instance can report it
+    */
+   public void launchFinished(LaunchJob job)
+   {
+      JsonArrayBuilder events = createArrayBuilder();
+      for (LaunchJob.Event event : job.getEvents())
+      {
+         events.add(createObjectBuilder().add("name", event.getName()).add("data", event.getData()));
+      }
+      writeJob(job.getId(), events.build(), true);
+      append(createObjectBuilder().add(OPERATION, LAUNCHED).add("id", job.getId()).build());
+   }
+
+   /**
+    * Reads a launch submitted to an instance sharing the journal directory. The events of a launch still running are
+    * only available once it is finished.
+    *
+    * @return the launch with the given id, or null if it is unknown or expired
+    */
+   public LaunchJob getJob(String id)
+   {
+      if (!JOB_ID.matcher(id).matches())
+      {
+         return null;
+      }
+      JsonObject record;
+      try
+      {
+         record = Json.createReader(new StringReader(
+                  new String(Files.readAllBytes(jobs.resolve(id + ".json")), StandardCharsets.UTF_8))).readObject();
+      }
+      catch (IOException | JsonException e)
+      {
+         return null;
+      }
+      LaunchJob job = new LaunchJob(id);
+      List<JsonObject> events = record.getJsonArray("events").getValuesAs(JsonObject.class);
+      boolean finished = record.getBoolean("finished", false);
+      for (int i = 0; i < events.size(); i++)
+      {
+         JsonObject event = events.get(i);
+         job.restore(event.getString("name"), event.getJsonObject("data"), finished && i == events.size() - 1);
+      }
+      return job;
+   }
+
+   /**
+    * Closes the journal and releases its lock, leaving its pending launches to the next instance
+    */
+   public synchronized void close() throws IOException
+   {
+      try
+      {
+         if (channel != null)
+         {
+            channel.close();
+            channel = null;
+         }
+      }
+      finally
+      {
+         if (lock != null)
+         {
+            lock.close();
+         }
+      }
+   }
+
+   private synchronized void append(JsonObject record)
+   {
+      apply(record);
+      if (channel == null)
+      {
+         return;
+      }
+      try
+      {
+         write(channel, record);
+         channel.force(false);
+         if (++records > COMPACTION_THRESHOLD && records > 2 * pendingLaunches.size())
+         {
+            compact();
+         }
+      }
+      catch (IOException e)
+      {
+         log.log(Level.SEVERE, "Error while writing to launch journal " + file, e);
+      }
+   }
+
+   private void apply(JsonObject record)
+   {
+      switch (record.getString(OPERATION, ""))
+      {
+      case LAUNCH:
+         pendingLaunches.put(record.getString("id"), record);
+         break;
+      case LAUNCHED:
+         pendingLaunches.remove(record.getString("id"));
+         break;
+      default:
+         log.warning("Ignoring unknown launch journal record " + record);
+      }
+   }
+
+   private void load(Path journal) throws IOException
+   {
+      if (!Files.exists(journal))
+      {
+         return;
+      }
+      for (String line : Files.readAllLines(journal, StandardCharsets.UTF_8))
+      {
+         if (line.isEmpty())
+         {
+            continue;
+         }
+         try
+         {
+            apply(Json.createReader(new StringReader(line)).readObject());
+         }
+         catch (JsonException e)
+         {
+            // The last record may have been cut short by a crash
+            log.warning("Ignoring corrupted launch journal record in " + journal);
+         }
+      }
+   }
+
+   /**
+    * Loads the journals of the instances which are gone
+    *
+    * @return the journals loaded, with their lock
+    */
+   private Map<Path, InstanceLock> loadOrphans(Path directory) throws IOException
+   {
+      Map<Path, InstanceLock> orphans = new LinkedHashMap<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + EXTENSION))
+      {
+         for (Path journal : stream)
+         {
+            if (journal.equals(file))
+            {
+               continue;
+            }
+            String name = journal.getFileName().toString();
+            // An instance creates its journal once it holds the lock, so a lock we can take is not in use
+            InstanceLock orphan = InstanceLock
+                     .tryLock(journal.resolveSibling(name.substring(0, name.length() - EXTENSION.length()) + ".lock"));
+            if (orphan != null)
+            {
+               log.info("Taking over the pending launches of " + journal);
+               load(journal);
+               orphans.put(journal, orphan);
+            }
+         }
+      }
+      return orphans;
+   }
+
+   /**
+    * Rewrites the journal with the pending records only
+    */
+   private void compact() throws IOException
+   {
+      if (channel != null)
+      {
+         channel.close();
+         channel = null;
+      }
+      Path compacted = file.resolveSibling(file.getFileName() + ".tmp");
+      try (FileChannel out = open(compacted, StandardOpenOption.TRUNCATE_EXISTING))
+      {
+         for (JsonObject launch : pendingLaunches.values())
+         {
+            write(out, launch);
+         }
+         out.force(false);
+      }
+      Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      channel = open(file, StandardOpenOption.APPEND);
+      records = pendingLaunches.size();
+   }
+
+   /**
+    * Writes the events of a launch where the other instances can read them, and deletes the expired ones
+    */
+   private void writeJob(String id, JsonArray events, boolean finished)
+   {
+      try
+      {
+         Path job = jobs.resolve(id + ".json");
+         Path tmp = jobs.resolve(id + ".tmp");
+         Files.write(tmp, createObjectBuilder().add("events", events).add("finished", finished).build().toString()
+                  .getBytes(StandardCharsets.UTF_8));
+         Files.move(tmp, job, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+         expireJobs();
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Error while writing the events of launch " + id, e);
+      }
+   }
+
+   private void expireJobs() throws IOException
+   {
+      long now = System.currentTimeMillis();
+      synchronized (this)
+      {
+         if (now - expiredAt < JOB_EXPIRY_INTERVAL_MILLIS)
+         {
+            return;
+         }
+         expiredAt = now;
+      }
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(jobs))
+      {
+         for (Path job : stream)
+         {
+            if (now - Files.getLastModifiedTime(job).toMillis() > JOB_RETENTION_MILLIS)
+            {
+               Files.deleteIfExists(job);
+            }
+         }
+      }
+   }
+
+   private String getAuthorization(JsonObject record)
+   {
+      String credentials = record.getString(CREDENTIALS, null);
+      return credentials != null && seal != null ? seal.open(credentials) : null;
+   }
+
+   private static FileChannel open(Path path, StandardOpenOption mode) throws IOException
+   {
+      try
+      {
+         return FileChannel.open(path, EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode),
+                  PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+      }
+      catch (UnsupportedOperationException e)
+      {
+         return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+      }
+   }
+
+   private static void write(FileChannel channel, JsonObject record) throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.wrap((record.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining())
+      {
+         channel.write(buffer);
+      }
+   }
+
+   /**
+    * A launch that was submitted but not finished
+    */
+   public static class PendingLaunch
+   {
+      private final JsonObject record;
+      private final String authorization;
+
+      PendingLaunch(JsonObject record, String authorization)
+      {
+         this.record = record;
+         this.authorization = authorization;
+      }
+
+      public String getId()
+      {
+         return record.getString("id");
+      }
+
+      public String getCommandName()
+      {
+         return record.getString("command");
+      }
+
+      public JsonObject getContent()
+      {
+         return record.getJsonObject("content");
+      }
+
+      /**
+       * @return the request headers of the launch, with the <code>Authorization</code> header if it could be
+       *         decrypted
+       */
+      public Map<String, List<String>> getHeaders()
+      {
+         Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+         record.getJsonObject("headers").forEach((name, values) -> {
+            List<String> list = new ArrayList<>();
+            for (JsonValue value : (JsonArray) values)
+            {
+               list.add(((JsonString) value).getString());
+            }
+            headers.put(name, list);
+         });
+         if (authorization != null)
+         {
+            List<String> list = new ArrayList<>();
+            list.add(authorization);
+            headers.put("Authorization", list);
+         }
+         return headers;
+      }
+
+      /**
+       * @return true if the launch can be run again, false if its credentials were not journaled or cannot be
+       *         decrypted with the current secret
+       */
+      public boolean isReplayable()
+      {
+         return authorization != null;
+      }
+   }
+}
@@ -0,0 +1,52 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+/**
+ * Receives the progress of a launch
+ */
+public interface LaunchListener
+{
+   /**
+    * A {@link LaunchListener} that ignores every notification
+    */
+   LaunchListener NONE = new LaunchListener()
+   {
+   };
+
+   default void generationStarted()
+   {
+   }
+
+   default void generationFinished()
+   {
+   }
+
+   /**
+    * @param size the size in bytes of the generated archive
+    */
+   default void archiveCreated(long size)
+   {
+   }
+
+   /**
+    * @param bytes the number of bytes already sent to Mission Control
+    * @param total the total number of bytes to be sent
+    */
+   default void uploadProgress(long bytes, long total)
+   {
+   }
+}
@@ -0,0 +1,74 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Hands the submitted launches out to a fixed number of workers, so only that many launches run at the same time
+ */
+public class LaunchQueue
+{
+   private static final Logger log = Logger.getLogger(LaunchQueue.class.getName());
+
+   private final BlockingQueue<Runnable> launches = new LinkedBlockingQueue<>();
+
+   /**
+    * Starts the workers. Launches submitted before this call are kept until a worker is available.
+    *
+    * @param executor the {@link ExecutorService} where the workers run
+    * @param workers the number of launches allowed to run at the same time
+    */
+   public void start(ExecutorService executor, int workers)
+   {
+      for (int i = 0; i < workers; i++)
+      {
+         executor.submit(this::work);
+      }
+   }
+
+   public void submit(Runnable launch)
+   {
+      launches.offer(launch);
+   }
+
+   private void work()
+   {
+      try
+      {
+         while (true)
+         {
+            Runnable launch = launches.take();
+            try
+            {
+               launch.run();
+            }
+            catch (RuntimeException e)
+            {
+               log.log(Level.SEVERE, "Error while running launch", e);
+            }
+         }
+      }
+      catch (InterruptedException e)
+      {
+         // Do nothing
+      }
+   }
+}
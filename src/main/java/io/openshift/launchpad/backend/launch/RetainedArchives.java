@@ -0,0 +1,222 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.openshift.launchpad.backend.util.Environment;
+
+/**
+ * Keeps the archives generated for Mission Control on disk until their upload is confirmed, so a retried launch of
+ * the same project by the same user uploads the same archive, with the same idempotency key, instead of generating it
+ * again. Archives are deleted once released or when they expire.
+ */
+public class RetainedArchives
+{
+   private static final Logger log = Logger.getLogger(RetainedArchives.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_ARCHIVE_TTL_SECONDS = "LAUNCHPAD_BACKEND_ARCHIVE_TTL_SECONDS";
+
+   private final Path directory;
+   private final long ttlMillis;
+   private final Map<String, RetainedArchive> archives = new ConcurrentHashMap<>();
+
+   /**
+    * @param directory where the archives are stored
+    * @param ttl how long an archive is kept when its upload is not confirmed
+    */
+   public RetainedArchives(Path directory, long ttl, TimeUnit unit)
+   {
+      this.directory = directory;
+      this.ttlMillis = unit.toMillis(ttl);
+   }
+
+   /**
+    * Creates the {@link RetainedArchives} stored in the given directory, keeping the archives for
+    * LAUNCHPAD_BACKEND_ARCHIVE_TTL_SECONDS (an environment variable or system property, defaults to 600)
+    */
+   public static RetainedArchives fromEnvironment(Path directory)
+   {
+      return new RetainedArchives(directory, Environment.getLong(LAUNCHPAD_BACKEND_ARCHIVE_TTL_SECONDS, 600),
+               TimeUnit.SECONDS);
+   }
+
+   /**
+    * @param key identifies the generated project
+    * @param owner identifies the user, eg. the Authorization header. May be null
+    * @return the archive retained for the given project and user, or null
+    */
+   public RetainedArchive get(String key, String owner)
+   {
+      purge();
+      return archives.get(toId(key, owner));
+   }
+
+   /**
+    * Stores the given archive until it is released or expires. Replaces the archive previously retained for the same
+    * project and user.
+    *
+    * @param properties the properties of the project sent with the archive
+    */
+   public RetainedArchive retain(String key, String owner, byte[] contents, Map<String, String> properties)
+            throws IOException
+   {
+      purge();
+      Files.createDirectories(directory);
+      Path file = Files.createTempFile(directory, "archive", ".zip");
+      Files.write(file, contents);
+      String id = toId(key, owner);
+      RetainedArchive archive = new RetainedArchive(id, file, contents.length, properties,
+               System.currentTimeMillis() + ttlMillis);
+      RetainedArchive previous = archives.put(id, archive);
+      if (previous != null)
+      {
+         delete(previous);
+      }
+      return archive;
+   }
+
+   /**
+    * Deletes the given archive, once its upload is confirmed
+    */
+   public void release(RetainedArchive archive)
+   {
+      if (archives.remove(archive.id, archive))
+      {
+         delete(archive);
+      }
+   }
+
+   /**
+    * @return the number of archives retained
+    */
+   public int size()
+   {
+      return archives.size();
+   }
+
+   private void purge()
+   {
+      long now = System.currentTimeMillis();
+      Iterator<RetainedArchive> iterator = archives.values().iterator();
+      while (iterator.hasNext())
+      {
+         RetainedArchive archive = iterator.next();
+         if (archive.expiresAt <= now)
+         {
+            iterator.remove();
+            delete(archive);
+         }
+      }
+   }
+
+   private static void delete(RetainedArchive archive)
+   {
+      try
+      {
+         Files.deleteIfExists(archive.file);
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Error while deleting " + archive.file, e);
+      }
+   }
+
+   /**
+    * The owner is hashed, so credentials are not kept in memory
+    */
+   private static String toId(String key, String owner)
+   {
+      try
+      {
+         MessageDigest digest = MessageDigest.getInstance("SHA-256");
+         digest.update(key.getBytes(StandardCharsets.UTF_8));
+         digest.update((byte) 0);
+         if (owner != null)
+         {
+            digest.update(owner.getBytes(StandardCharsets.UTF_8));
+         }
+         return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * An archive waiting for its upload to be confirmed
+    */
+   public static class RetainedArchive
+   {
+      private final String id;
+      private final Path file;
+      private final long size;
+      private final Map<String, String> properties;
+      private final String idempotencyKey = UUID.randomUUID().toString();
+      private final long expiresAt;
+
+      RetainedArchive(String id, Path file, long size, Map<String, String> properties, long expiresAt)
+      {
+         this.id = id;
+         this.file = file;
+         this.size = size;
+         this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+         this.expiresAt = expiresAt;
+      }
+
+      /**
+       * @return a new stream reading the archive
+       */
+      public InputStream openStream() throws IOException
+      {
+         return Files.newInputStream(file);
+      }
+
+      public long getSize()
+      {
+         return size;
+      }
+
+      public Map<String, String> getProperties()
+      {
+         return properties;
+      }
+
+      /**
+       * @return the key sent with every upload of this archive, so Mission Control can recognize a retried upload
+       */
+      public String getIdempotencyKey()
+      {
+         return idempotencyKey;
+      }
+   }
+}
@@ -0,0 +1,80 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.launch;
+
+import java.util.concurrent.ThreadLocalRandom;
+import io.openshift.launchpad.backend.util.Environment;
+
+/**
+ * How many times and how long apart a failed call to a downstream service is retried. The delay grows exponentially
+ * with the attempts and is fully jittered, so the retries of many clients don't hit the service at the same time.
+ */
+public class RetryPolicy
+{
+   private static final String LAUNCHPAD_BACKEND_UPLOAD_RETRIES = "LAUNCHPAD_BACKEND_UPLOAD_RETRIES";
+   private static final String LAUNCHPAD_BACKEND_UPLOAD_RETRY_DELAY_MS = "LAUNCHPAD_BACKEND_UPLOAD_RETRY_DELAY_MS";
+   private static final long MAX_DELAY_MILLIS = 10_000;
+
+   private final int retries;
+   private final long baseDelayMillis;
+
+   /**
+    * @param retries the number of retries after the first attempt
+    * @param baseDelayMillis the maximum delay before the first retry, doubled for each following retry (up to 10
+    *           seconds)
+    */
+   public RetryPolicy(int retries, long baseDelayMillis)
+   {
+      this.retries = retries;
+      this.baseDelayMillis = baseDelayMillis;
+   }
+
+   /**
+    * Creates the {@link RetryPolicy} of the Mission Control uploads from the LAUNCHPAD_BACKEND_UPLOAD_RETRIES (defaults
+    * to 3) and LAUNCHPAD_BACKEND_UPLOAD_RETRY_DELAY_MS (defaults to 500) environment variables (or system properties)
+    */
+   public static RetryPolicy fromEnvironment()
+   {
+      return new RetryPolicy(Environment.getInt(LAUNCHPAD_BACKEND_UPLOAD_RETRIES, 3),
+               Environment.getLong(LAUNCHPAD_BACKEND_UPLOAD_RETRY_DELAY_MS, 500));
+   }
+
+   /**
+    * @return the number of attempts, the first one included
+    */
+   public int getMaxAttempts()
+   {
+      return retries + 1;
+   }
+
+   /**
+    * @return true if a response with the given status may succeed when retried
+    */
+   public boolean isRetryable(int status)
+   {
+      return status >= 500;
+   }
+
+   /**
+    * @param retry the retry about to be made, starting at 1
+    * @return a random delay between 0 and the maximum delay of this retry, in milliseconds
+    */
+   public long getDelayMillis(int retry)
+   {
+      long maxDelay = Math.min(MAX_DELAY_MILLIS, baseDelayMillis << Math.min(retry - 1, 20));
+      return maxDelay > 0 ? ThreadLocalRandom.current().nextLong(maxDelay + 1) : 0;
+   }
+}
@@ -0,0 +1,171 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.log;
+
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.json.stream.JsonGenerator;
+
+import io.openshift.launchpad.backend.util.Environment;
+import io.openshift.launchpad.backend.util.JsonFactory;
+import io.openshift.launchpad.backend.util.RingBuffer;
+
+/**
+ * Writes one JSON line per {@link AccessLogEntry}. Entries are queued in a {@link RingBuffer} and written by a
+ * background thread, so logging never blocks the request threads; entries logged while the buffer is full are
+ * dropped.
+ */
+public class AccessLog
+{
+   private static final Logger log = Logger.getLogger(AccessLog.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_ACCESS_LOG = "LAUNCHPAD_BACKEND_ACCESS_LOG";
+   private static final int CAPACITY = 8192;
+   private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+   private static final AccessLog DEFAULT = fromEnvironment();
+
+   private final RingBuffer<AccessLogEntry> entries = new RingBuffer<>(CAPACITY);
+   private final OutputStream out;
+   private final OutputStream unclosable;
+   private long reportedDrops;
+
+   /**
+    * Starts writing the logged entries to the given stream
+    */
+   public AccessLog(OutputStream out)
+   {
+      this.out = out;
+      this.unclosable = new FilterOutputStream(out)
+      {
+         @Override
+         public void write(byte[] b, int off, int len) throws IOException
+         {
+            out.write(b, off, len);
+         }
+
+         @Override
+         public void close() throws IOException
+         {
+            flush();
+         }
+      };
+      if (out != null)
+      {
+         Thread writer = new Thread(this::drain, "access-log-writer");
+         writer.setDaemon(true);
+         writer.start();
+      }
+   }
+
+   /**
+    * @return the access log configured by the LAUNCHPAD_BACKEND_ACCESS_LOG environment variable (or system property)
+    */
+   public static AccessLog getDefault()
+   {
+      return DEFAULT;
+   }
+
+   /**
+    * LAUNCHPAD_BACKEND_ACCESS_LOG is the file the entries are appended to, <code>stdout</code> (the default) or
+    * <code>off</code>
+    */
+   private static AccessLog fromEnvironment()
+   {
+      String target = Environment.getEnv(LAUNCHPAD_BACKEND_ACCESS_LOG);
+      if (target == null || "stdout".equals(target))
+      {
+         return new AccessLog(System.out);
+      }
+      if ("off".equals(target))
+      {
+         return new AccessLog(null);
+      }
+      try
+      {
+         return new AccessLog(new FileOutputStream(target, true));
+      }
+      catch (IOException e)
+      {
+         log.log(Level.SEVERE, "Cannot open the access log " + target + ", access log disabled", e);
+         return new AccessLog(null);
+      }
+   }
+
+   /**
+    * Queues the given entry. Never blocks.
+    */
+   public void log(AccessLogEntry entry)
+   {
+      if (out != null)
+      {
+         entries.offer(entry);
+      }
+   }
+
+   private void drain()
+   {
+      while (true)
+      {
+         AccessLogEntry entry = entries.poll();
+         if (entry == null)
+         {
+            reportDrops();
+            LockSupport.parkNanos(IDLE_NANOS);
+            continue;
+         }
+         try
+         {
+            while (entry != null)
+            {
+               write(entry);
+               entry = entries.poll();
+            }
+            out.flush();
+         }
+         catch (IOException | RuntimeException e)
+         {
+            log.log(Level.WARNING, "Error while writing the access log", e);
+         }
+      }
+   }
+
+   private void write(AccessLogEntry entry) throws IOException
+   {
+      JsonGenerator generator = JsonFactory.createGenerator(unclosable);
+      entry.write(generator);
+      // Flushes the generator without closing the log
+      generator.close();
+      out.write('\n');
+   }
+
+   private void reportDrops()
+   {
+      long dropped = entries.getDropped();
+      if (dropped > reportedDrops)
+      {
+         log.warning((dropped - reportedDrops) + " access log entries dropped because the buffer was full");
+         reportedDrops = dropped;
+      }
+   }
+}
@@ -0,0 +1,192 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.log;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.stream.JsonGenerator;
+
+import io.openshift.launchpad.backend.jfr.FlightRecorders;
+
+/**
+ * The record of a request (or of a background launch) written to the {@link AccessLog}. The entry of the work running
+ * in the current thread is available through {@link #current()}.
+ */
+public class AccessLogEntry
+{
+   private static final ThreadLocal<AccessLogEntry> CURRENT = new ThreadLocal<>();
+
+   private final Instant time = Instant.now();
+   private final long start = System.nanoTime();
+   private final String method;
+   private final String path;
+   private final Map<String, Long> stages = new LinkedHashMap<>();
+   private String command;
+   private Integer stepIndex;
+   private int status;
+   private long archiveSize = -1;
+   private long duration;
+   private boolean finished;
+
+   public AccessLogEntry(String method, String path)
+   {
+      this.method = method;
+      this.path = path;
+   }
+
+   /**
+    * @return the entry bound to the current thread, or null
+    */
+   public static AccessLogEntry current()
+   {
+      return CURRENT.get();
+   }
+
+   /**
+    * Binds the given entry (which may be null) to the current thread
+    *
+    * @return the entry previously bound to the current thread, to be restored with {@link #bind(AccessLogEntry)}
+    */
+   public static AccessLogEntry bind(AccessLogEntry entry)
+   {
+      AccessLogEntry previous = CURRENT.get();
+      if (entry == null)
+      {
+         CURRENT.remove();
+      }
+      else
+      {
+         CURRENT.set(entry);
+      }
+      return previous;
+   }
+
+   /**
+    * Starts timing a stage of the entry bound to the current thread, if any, and a JDK Flight Recorder event for it.
+    * Use in a try-with-resources block:
+    *
+    * <pre>
+    * try (Stage stage = AccessLogEntry.stage("execute"))
+    * {
+    *    ...
+    * }
+    * </pre>
+    */
+   public static Stage stage(String name)
+   {
+      AccessLogEntry entry = CURRENT.get();
+      Stage event = FlightRecorders.beginStage(name, entry != null ? entry.getCommand() : null);
+      if (entry == null)
+      {
+         return event;
+      }
+      long stageStart = System.nanoTime();
+      return () -> {
+         event.close();
+         entry.addStage(name, System.nanoTime() - stageStart);
+      };
+   }
+
+   public synchronized void addStage(String name, long nanos)
+   {
+      stages.merge(name, nanos, Long::sum);
+   }
+
+   public synchronized String getCommand()
+   {
+      return command;
+   }
+
+   public synchronized void setCommand(String command)
+   {
+      this.command = command;
+   }
+
+   public synchronized void setStepIndex(int stepIndex)
+   {
+      this.stepIndex = stepIndex;
+   }
+
+   public synchronized void setArchiveSize(long archiveSize)
+   {
+      this.archiveSize = archiveSize;
+   }
+
+   /**
+    * Records the outcome and the total duration of the request, unless already recorded
+    *
+    * @param status the HTTP status of the response
+    * @return true if the outcome was recorded, false if the entry was already finished
+    */
+   public synchronized boolean finish(int status)
+   {
+      if (finished)
+      {
+         return false;
+      }
+      this.finished = true;
+      this.status = status;
+      this.duration = System.nanoTime() - start;
+      return true;
+   }
+
+   /**
+    * Writes this entry as a JSON object
+    */
+   public synchronized void write(JsonGenerator generator)
+   {
+      generator.writeStartObject()
+               .write("time", time.toString())
+               .write("method", method)
+               .write("path", path);
+      if (command != null)
+      {
+         generator.write("command", command);
+      }
+      if (stepIndex != null)
+      {
+         generator.write("stepIndex", stepIndex);
+      }
+      generator.write("status", status);
+      if (archiveSize >= 0)
+      {
+         generator.write("archiveSize", archiveSize);
+      }
+      generator.write("durationMs", toMillis(duration));
+      generator.writeStartObject("stagesMs");
+      stages.forEach((name, nanos) -> generator.write(name, toMillis(nanos)));
+      generator.writeEnd();
+      generator.writeEnd();
+   }
+
+   private static double toMillis(long nanos)
+   {
+      return TimeUnit.NANOSECONDS.toMicros(nanos) / 1000.0;
+   }
+
+   /**
+    * A stage being timed, recorded when closed
+    */
+   @FunctionalInterface
+   public interface Stage extends AutoCloseable
+   {
+      @Override
+      void close();
+   }
+}
@@ -0,0 +1,80 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.io.IOException;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+
+import io.openshift.launchpad.backend.log.AccessLog;
+import io.openshift.launchpad.backend.log.AccessLogEntry;
+
+/**
+ * Creates an {@link AccessLogEntry} for each request, bound to the request thread, and logs it with the outcome once
+ * the response is ready. The response filters are skipped when a request fails with an exception no
+ * {@link javax.ws.rs.ext.ExceptionMapper} handles: {@link AccessLogServletFilter} logs these entries.
+ */
+public class AccessLogFilter implements ContainerRequestFilter, ContainerResponseFilter
+{
+   private static final String ENTRY = AccessLogEntry.class.getName();
+
+   private final AccessLog accessLog;
+
+   public AccessLogFilter(AccessLog accessLog)
+   {
+      this.accessLog = accessLog;
+   }
+
+   @Override
+   public void filter(ContainerRequestContext requestContext) throws IOException
+   {
+      AccessLogEntry entry = new AccessLogEntry(requestContext.getMethod(),
+               "/" + requestContext.getUriInfo().getPath(false));
+      String commandName = requestContext.getUriInfo().getPathParameters().getFirst("commandName");
+      if (commandName != null)
+      {
+         entry.setCommand(commandName);
+      }
+      requestContext.setProperty(ENTRY, entry);
+      AccessLogEntry.bind(entry);
+   }
+
+   @Override
+   public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext)
+            throws IOException
+   {
+      AccessLogEntry entry = (AccessLogEntry) requestContext.getProperty(ENTRY);
+      if (entry != null)
+      {
+         Object entity = responseContext.getEntity();
+         if (entity instanceof byte[])
+         {
+            entry.setArchiveSize(((byte[]) entity).length);
+         }
+         if (entry.finish(responseContext.getStatus()))
+         {
+            accessLog.log(entry);
+         }
+         if (AccessLogEntry.current() == entry)
+         {
+            AccessLogEntry.bind(null);
+         }
+      }
+   }
+}
@@ -0,0 +1,131 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.io.IOException;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+import io.openshift.launchpad.backend.log.AccessLog;
+import io.openshift.launchpad.backend.log.AccessLogEntry;
+
+/**
+ * Unbinds the {@link AccessLogEntry} bound by {@link AccessLogFilter} from the request thread once the request is
+ * handled, and logs it if the JAX-RS response filters did not run, ie. when the request failed with an unmapped
+ * exception. The entry of an asynchronous request is logged when it completes, if not logged before.
+ */
+public class AccessLogServletFilter implements Filter
+{
+   private final AccessLog accessLog;
+
+   public AccessLogServletFilter()
+   {
+      this(AccessLog.getDefault());
+   }
+
+   AccessLogServletFilter(AccessLog accessLog)
+   {
+      this.accessLog = accessLog;
+   }
+
+   @Override
+   public void init(FilterConfig filterConfig)
+   {
+   }
+
+   @Override
+   public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException
+   {
+      boolean failed = true;
+      try
+      {
+         chain.doFilter(request, response);
+         failed = false;
+      }
+      finally
+      {
+         AccessLogEntry entry = AccessLogEntry.bind(null);
+         if (entry != null)
+         {
+            if (request.isAsyncStarted())
+            {
+               request.getAsyncContext().addListener(new CompletionListener(entry));
+            }
+            else
+            {
+               log(entry, failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR
+                        : ((HttpServletResponse) response).getStatus());
+            }
+         }
+      }
+   }
+
+   @Override
+   public void destroy()
+   {
+   }
+
+   private void log(AccessLogEntry entry, int status)
+   {
+      if (entry.finish(status))
+      {
+         accessLog.log(entry);
+      }
+   }
+
+   /**
+    * Logs the entry of an asynchronous request when it completes
+    */
+   private class CompletionListener implements AsyncListener
+   {
+      private final AccessLogEntry entry;
+
+      CompletionListener(AccessLogEntry entry)
+      {
+         this.entry = entry;
+      }
+
+      @Override
+      public void onComplete(AsyncEvent event)
+      {
+         log(entry, ((HttpServletResponse) event.getSuppliedResponse()).getStatus());
+      }
+
+      @Override
+      public void onTimeout(AsyncEvent event)
+      {
+      }
+
+      @Override
+      public void onError(AsyncEvent event)
+      {
+      }
+
+      @Override
+      public void onStartAsync(AsyncEvent event)
+      {
+      }
+   }
+}
@@ -16,8 +16,12 @@
 package io.openshift.launchpad.backend.rest;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -26,6 +30,7 @@ import javax.ws.rs.container.ContainerResponseContext;
 import javax.ws.rs.container.ContainerResponseFilter;
 import javax.ws.rs.container.PreMatching;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 
 /**
  *
@@ -51,8 +56,17 @@ public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilt
    protected int corsMaxAge = -1;
    protected Set<String> allowedOrigins = new HashSet<>();
 
+   private static final int MAX_CACHED_PREFLIGHTS = 1024;
+
+   private volatile OriginMatcher originMatcher;
+   /**
+    * The headers of the preflight responses, as alternating names and values
+    */
+   private final Map<String, String[]> preflightHeaders = new ConcurrentHashMap<>();
+
    /**
-    * Put "*" if you want to accept all origins
+    * Put "*" if you want to accept all origins. Origins may contain "*" to match subdomains, eg.
+    * <code>https://*.openshift.io</code>. Changes after the first request are ignored.
     *
     * @return
     */
@@ -179,39 +193,63 @@ public class CorsFilter implements ContainerRequestFilter, ContainerResponseFilt
    {
       checkOrigin(requestContext, origin);
 
-      Response.ResponseBuilder builder = Response.ok();
-      builder.header(ACCESS_CONTROL_ALLOW_ORIGIN, origin);
-      if (allowCredentials)
-         builder.header(ACCESS_CONTROL_ALLOW_CREDENTIALS, "true");
       String requestMethods = requestContext.getHeaderString(ACCESS_CONTROL_REQUEST_METHOD);
-      if (requestMethods != null)
+      String allowHeaders = requestContext.getHeaderString(ACCESS_CONTROL_REQUEST_HEADERS);
+      String key = origin + '\n' + requestMethods + '\n' + allowHeaders;
+      String[] headers = preflightHeaders.get(key);
+      if (headers == null)
       {
-         if (allowedMethods != null)
+         headers = preflightHeaders(origin, requestMethods, allowHeaders);
+         if (preflightHeaders.size() >= MAX_CACHED_PREFLIGHTS)
          {
-            requestMethods = this.allowedMethods;
+            preflightHeaders.clear();
          }
-         builder.header(ACCESS_CONTROL_ALLOW_METHODS, requestMethods);
+         preflightHeaders.put(key, headers);
+      }
+      ResponseBuilder response = Response.ok();
+      for (int i = 0; i < headers.length; i += 2)
+      {
+         response.header(headers[i], headers[i + 1]);
+      }
+      requestContext.abortWith(response.build());
+   }
+
+   private String[] preflightHeaders(String origin, String requestMethods, String allowHeaders)
+   {
+      List<String> headers = new ArrayList<>();
+      headers.add(ACCESS_CONTROL_ALLOW_ORIGIN);
+      headers.add(origin);
+      if (allowCredentials)
+      {
+         headers.add(ACCESS_CONTROL_ALLOW_CREDENTIALS);
+         headers.add("true");
+      }
+      if (requestMethods != null)
+      {
+         headers.add(ACCESS_CONTROL_ALLOW_METHODS);
+         headers.add(allowedMethods != null ? allowedMethods : requestMethods);
       }
-      String allowHeaders = requestContext.getHeaderString(ACCESS_CONTROL_REQUEST_HEADERS);
       if (allowHeaders != null)
       {
-         if (allowedHeaders != null)
-         {
-            allowHeaders = this.allowedHeaders;
-         }
-         builder.header(ACCESS_CONTROL_ALLOW_HEADERS, allowHeaders);
+         headers.add(ACCESS_CONTROL_ALLOW_HEADERS);
+         headers.add(allowedHeaders != null ? allowedHeaders : allowHeaders);
       }
       if (corsMaxAge > -1)
       {
-         builder.header(ACCESS_CONTROL_MAX_AGE, corsMaxAge);
+         headers.add(ACCESS_CONTROL_MAX_AGE);
+         headers.add(String.valueOf(corsMaxAge));
       }
-      requestContext.abortWith(builder.build());
-
+      return headers.toArray(new String[headers.size()]);
    }
 
    protected void checkOrigin(ContainerRequestContext requestContext, String origin)
    {
-      if (!allowedOrigins.contains("*") && !allowedOrigins.contains(origin))
+      OriginMatcher matcher = originMatcher;
+      if (matcher == null)
+      {
+         matcher = originMatcher = new OriginMatcher(allowedOrigins);
+      }
+      if (!matcher.matches(origin))
       {
          requestContext.setProperty("cors.failure", true);
          throw new ForbiddenException("Origin not allowed: " + origin);
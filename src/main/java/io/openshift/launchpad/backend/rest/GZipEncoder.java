@@ -0,0 +1,142 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.io.IOException;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import io.openshift.launchpad.backend.util.ThresholdGZipOutputStream;
+
+/**
+ * Compresses JSON responses with gzip when the client accepts it and the response is larger than a threshold. Archives
+ * and event streams are left untouched.
+ */
+public class GZipEncoder implements ContainerRequestFilter, WriterInterceptor
+{
+   private static final String ACCEPTS_GZIP = GZipEncoder.class.getName() + ".acceptsGzip";
+   private static final String GZIP = "gzip";
+
+   protected int threshold = 1024;
+   protected int level = 6;
+
+   /**
+    * Responses smaller than this size (in bytes) are not compressed. Defaults to 1024
+    *
+    * @return
+    */
+   public int getThreshold()
+   {
+      return threshold;
+   }
+
+   public void setThreshold(int threshold)
+   {
+      this.threshold = threshold;
+   }
+
+   /**
+    * The compression level, from 1 (fastest) to 9 (smallest). Defaults to 6
+    *
+    * @return
+    */
+   public int getLevel()
+   {
+      return level;
+   }
+
+   public void setLevel(int level)
+   {
+      this.level = level;
+   }
+
+   @Override
+   public void filter(ContainerRequestContext requestContext) throws IOException
+   {
+      if (acceptsGzip(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING)))
+      {
+         requestContext.setProperty(ACCEPTS_GZIP, Boolean.TRUE);
+      }
+   }
+
+   @Override
+   public void aroundWriteTo(WriterInterceptorContext context) throws IOException
+   {
+      MediaType mediaType = context.getMediaType();
+      MultivaluedMap<String, Object> headers = context.getHeaders();
+      if (mediaType == null || !MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)
+               || headers.containsKey(HttpHeaders.CONTENT_ENCODING))
+      {
+         context.proceed();
+         return;
+      }
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+      Object entity = context.getEntity();
+      if (context.getProperty(ACCEPTS_GZIP) == null
+               || (entity instanceof byte[] && ((byte[]) entity).length < threshold)
+               || (entity instanceof String && ((String) entity).length() < threshold))
+      {
+         context.proceed();
+         return;
+      }
+      ThresholdGZipOutputStream gzip = new ThresholdGZipOutputStream(context.getOutputStream(), threshold, level,
+               () -> {
+                  headers.putSingle(HttpHeaders.CONTENT_ENCODING, GZIP);
+                  headers.remove(HttpHeaders.CONTENT_LENGTH);
+               });
+      context.setOutputStream(gzip);
+      try
+      {
+         context.proceed();
+      }
+      finally
+      {
+         // Releases the native memory of the compressor, the response stream is left open
+         gzip.close();
+      }
+   }
+
+   static boolean acceptsGzip(String acceptEncoding)
+   {
+      if (acceptEncoding == null)
+      {
+         return false;
+      }
+      for (String coding : acceptEncoding.split(","))
+      {
+         String[] parts = coding.trim().split(";");
+         if (GZIP.equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim()))
+         {
+            for (int i = 1; i < parts.length; i++)
+            {
+               String parameter = parts[i].trim().replace(" ", "");
+               if (parameter.matches("q=0(\\.0*)?"))
+               {
+                  return false;
+               }
+            }
+            return true;
+         }
+      }
+      return false;
+   }
+}
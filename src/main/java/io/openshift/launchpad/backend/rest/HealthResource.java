@@ -13,8 +13,14 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriBuilder;
 
+import io.openshift.launchpad.backend.StartupTimer;
+import io.openshift.launchpad.backend.workspace.DiskPressureWatchdog;
+import io.openshift.launchpad.backend.workspace.DiskPressureWatchdog.Pressure;
+
 /**
  * Reports that the application is available to receive requests
  *
@@ -30,6 +36,7 @@ public class HealthResource
    public static final String PATH_HEALTH = "/health";
    public static final String PATH_READY = "/ready";
    public static final String PATH_MISSIONCONTROL = "/missioncontrol";
+   public static final String PATH_DISK = "/disk";
 
    private static final String STATUS = "status";
    private static final String REASON = "reason";
@@ -47,9 +54,32 @@ public class HealthResource
    @Produces(MediaType.APPLICATION_JSON)
    public JsonObject ready()
    {
+      StartupTimer.mark("first request ready");
       return Json.createObjectBuilder().add(STATUS, OK).build();
    }
 
+   /**
+    * Reports the disk pressure of the workspaces. Answers 503 when it is critical and new generations are rejected,
+    * so it can be used as a readiness probe taking the pod out of rotation until the directories are cleaned up.
+    */
+   @GET
+   @Path(PATH_DISK)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response disk()
+   {
+      DiskPressureWatchdog watchdog = DiskPressureWatchdog.getDefault();
+      Pressure pressure = watchdog.getPressure();
+      JsonObject status = Json.createObjectBuilder()
+               .add(STATUS, pressure == Pressure.CRITICAL ? ERROR : OK)
+               .add("pressure", pressure.name())
+               .add("usableBytes", watchdog.getUsableSpace())
+               .add("pendingCleanups", watchdog.getPendingCleanups())
+               .add("outstandingCleanupBytes", watchdog.getOutstandingCleanupBytes())
+               .build();
+      return Response.status(pressure == Pressure.CRITICAL ? Status.SERVICE_UNAVAILABLE : Status.OK).entity(status)
+               .build();
+   }
+
    @GET
    @Path(PATH_MISSIONCONTROL + PATH_READY)
    @Produces(MediaType.APPLICATION_JSON)
@@ -0,0 +1,114 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+import javax.json.JsonStructure;
+import javax.json.JsonValue;
+import javax.json.stream.JsonGenerator;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import io.openshift.launchpad.backend.util.JsonFactory;
+
+/**
+ * Writes {@link JsonStructure} responses straight to the response stream with a shared {@link JsonGenerator} factory,
+ * instead of looking up a JSON-P provider and creating a writer for every response.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class JsonStructureWriter implements MessageBodyWriter<JsonStructure>
+{
+   @Override
+   public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+   {
+      return JsonStructure.class.isAssignableFrom(type);
+   }
+
+   @Override
+   public long getSize(JsonStructure structure, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType)
+   {
+      return -1;
+   }
+
+   @Override
+   public void writeTo(JsonStructure structure, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException
+   {
+      // Closing the generator releases its buffer, but the entity stream must be left open
+      try (JsonGenerator generator = JsonFactory.createGenerator(new NonClosingOutputStream(entityStream)))
+      {
+         write(generator, structure);
+      }
+   }
+
+   /**
+    * Writes the given {@link JsonStructure} as the top-level value of the given {@link JsonGenerator}
+    */
+   public static void write(JsonGenerator generator, JsonStructure structure)
+   {
+      if (structure.getValueType() == JsonValue.ValueType.OBJECT)
+      {
+         generator.writeStartObject();
+         for (Map.Entry<String, JsonValue> entry : ((JsonObject) structure).entrySet())
+         {
+            generator.write(entry.getKey(), entry.getValue());
+         }
+      }
+      else
+      {
+         generator.writeStartArray();
+         for (JsonValue value : (JsonArray) structure)
+         {
+            generator.write(value);
+         }
+      }
+      generator.writeEnd();
+   }
+
+   private static class NonClosingOutputStream extends FilterOutputStream
+   {
+      NonClosingOutputStream(OutputStream out)
+      {
+         super(out);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException
+      {
+         out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+         flush();
+      }
+   }
+}
@@ -15,35 +15,57 @@
  */
 package io.openshift.launchpad.backend.rest;
 
-import static javax.json.Json.createObjectBuilder;
+import static io.openshift.launchpad.backend.util.JsonFactory.createArrayBuilder;
+import static io.openshift.launchpad.backend.util.JsonFactory.createObjectBuilder;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
+import javax.json.JsonArray;
+import javax.json.JsonArrayBuilder;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+import javax.json.JsonValue.ValueType;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PathParam;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
@@ -51,6 +73,9 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.AbstractMultivaluedMap;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Form;
 import javax.ws.rs.core.HttpHeaders;
@@ -58,7 +83,9 @@ import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
 
 import org.jboss.forge.addon.resource.Resource;
 import org.jboss.forge.addon.resource.ResourceFactory;
@@ -69,6 +96,8 @@ import org.jboss.forge.addon.ui.context.UISelection;
 import org.jboss.forge.addon.ui.controller.CommandController;
 import org.jboss.forge.addon.ui.controller.CommandControllerFactory;
 import org.jboss.forge.addon.ui.controller.WizardCommandController;
+import org.jboss.forge.addon.ui.input.InputComponent;
+import org.jboss.forge.addon.ui.output.UIMessage;
 import org.jboss.forge.addon.ui.result.CompositeResult;
 import org.jboss.forge.addon.ui.result.Failed;
 import org.jboss.forge.addon.ui.result.Result;
@@ -80,9 +109,35 @@ import org.jboss.forge.service.ui.RestUIRuntime;
 import org.jboss.forge.service.util.UICommandHelper;
 import org.jboss.resteasy.plugins.providers.multipart.MultipartFormDataOutput;
 
-import io.openshift.launchpad.BoosterCatalogFactory;
 import io.openshift.launchpad.backend.ForgeInitializer;
+import io.openshift.launchpad.backend.StartupTimer;
+import io.openshift.launchpad.backend.cache.ArchiveCache;
+import io.openshift.launchpad.backend.cache.ArchiveCaches;
+import io.openshift.launchpad.backend.cache.CachedArchive;
+import io.openshift.launchpad.backend.catalog.BoosterIndexService;
+import io.openshift.launchpad.backend.catalog.ReindexCoordinator;
+import io.openshift.launchpad.backend.jfr.FlightRecorders;
+import io.openshift.launchpad.backend.launch.LaunchJob;
+import io.openshift.launchpad.backend.launch.LaunchJobs;
+import io.openshift.launchpad.backend.launch.LaunchJournal;
+import io.openshift.launchpad.backend.launch.LaunchListener;
+import io.openshift.launchpad.backend.launch.LaunchQueue;
+import io.openshift.launchpad.backend.launch.RetainedArchives;
+import io.openshift.launchpad.backend.launch.RetainedArchives.RetainedArchive;
+import io.openshift.launchpad.backend.launch.RetryPolicy;
+import io.openshift.launchpad.backend.log.AccessLog;
+import io.openshift.launchpad.backend.log.AccessLogEntry;
+import io.openshift.launchpad.backend.log.AccessLogEntry.Stage;
+import io.openshift.launchpad.backend.util.Environment;
 import io.openshift.launchpad.backend.util.JsonBuilder;
+import io.openshift.launchpad.backend.util.ProgressInputStream;
+import io.openshift.launchpad.backend.util.SingleFlight;
+import io.openshift.launchpad.backend.util.SpeculationCache;
+import io.openshift.launchpad.backend.util.VirtualThreads;
+import io.openshift.launchpad.backend.util.WizardStateToken;
+import io.openshift.launchpad.backend.workspace.DiskPressureWatchdog;
+import io.openshift.launchpad.backend.workspace.DiskPressureWatchdog.Pressure;
+import io.openshift.launchpad.backend.workspace.WorkspaceManager;
 
 @javax.ws.rs.Path("/launchpad")
 @ApplicationScoped
@@ -93,11 +148,62 @@ public class LaunchResource
    private static final Logger log = Logger.getLogger(LaunchResource.class.getName());
    private static final String LAUNCHPAD_MISSIONCONTROL_SERVICE_HOST = "LAUNCHPAD_MISSIONCONTROL_SERVICE_HOST";
    private static final String LAUNCHPAD_MISSIONCONTROL_SERVICE_PORT = "LAUNCHPAD_MISSIONCONTROL_SERVICE_PORT";
+   private static final String LAUNCHPAD_BACKEND_LAUNCH_WORKERS = "LAUNCHPAD_BACKEND_LAUNCH_WORKERS";
+   private static final String LAUNCHPAD_BACKEND_JOURNAL_DIR = "LAUNCHPAD_BACKEND_JOURNAL_DIR";
+   private static final String LAUNCHPAD_BACKEND_JOURNAL_SECRET = "LAUNCHPAD_BACKEND_JOURNAL_SECRET";
+   private static final String LAUNCHPAD_BACKEND_WARMUP = "LAUNCHPAD_BACKEND_WARMUP";
+   private static final String LAUNCHPAD_BACKEND_ZIP_WAIT_SECONDS = "LAUNCHPAD_BACKEND_ZIP_WAIT_SECONDS";
+   private static final String LAUNCHPAD_BACKEND_PROFILING_TOKEN = "LAUNCHPAD_BACKEND_PROFILING_TOKEN";
+   private static final int MAX_PROFILING_SECONDS = 300;
+   private static final String LAUNCHPAD_BACKEND_SPECULATIVE_GENERATION = "LAUNCHPAD_BACKEND_SPECULATIVE_GENERATION";
+   private static final String LAUNCHPAD_BACKEND_SPECULATIVE_CACHE_SIZE = "LAUNCHPAD_BACKEND_SPECULATIVE_CACHE_SIZE";
+   private static final String LAUNCHPAD_BACKEND_SPECULATIVE_TTL_SECONDS = "LAUNCHPAD_BACKEND_SPECULATIVE_TTL_SECONDS";
+   private static final String LAUNCHPAD_BACKEND_GENERATION_HEADERS = "LAUNCHPAD_BACKEND_GENERATION_HEADERS";
+   private static final String SERVER_SENT_EVENTS = "text/event-stream";
+   private static final long KEEPALIVE_SECONDS = 15;
+   private static final long RECONNECT_MILLIS = 100;
+   private static final String PROJECT_DIR_PREFIX = "projectDir";
+   private static final long UPLOAD_PROGRESS_STEP = 64 * 1024;
+   private static final String STATE_TOKEN = "stateToken";
+   private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+   /**
+    * The number of directories waiting for cleanup a generation deletes first when the disk pressure is high
+    */
+   private static final int MAX_CLEANUPS_PER_GENERATION = 4;
+   private static final int DISK_PRESSURE_RETRY_SECONDS = 30;
+   private static final int MAX_DELETE_ATTEMPTS = 3;
 
    private URI missionControlURI;
 
    private final Map<String, String> commandMap = new TreeMap<>();
    private final BlockingQueue<Path> directoriesToDelete = new LinkedBlockingQueue<>();
+   /**
+    * The number of failed attempts to delete each directory waiting for cleanup
+    */
+   private final Map<Path, Integer> failedDeletes = new ConcurrentHashMap<>();
+   private final LaunchJobs launchJobs = new LaunchJobs();
+   private final LaunchQueue launchQueue = new LaunchQueue();
+   private final SingleFlight<String, Response> zipGenerations = new SingleFlight<>();
+   // Created in initialize(), not in field initializers: the CDI client proxy runs those too
+   private WizardStateToken stateToken;
+   private WorkspaceManager workspaces;
+   private DiskPressureWatchdog diskPressure;
+   private RetryPolicy uploadRetries;
+   private RetainedArchives retainedArchives;
+   private ArchiveCache archiveCache;
+   /**
+    * The projects generated ahead of the download when speculative generation is enabled, null otherwise
+    */
+   private SpeculationCache<String, Response> speculations;
+   /**
+    * Runs the background work when virtual threads are enabled, null otherwise
+    */
+   private ExecutorService virtualThreads;
+   /**
+    * The lower case names of the request headers the generated project depends on
+    */
+   private Set<String> generationHeaders;
+   private volatile LaunchJournal journal;
 
    @javax.annotation.Resource
    private ManagedExecutorService executorService;
@@ -117,36 +223,73 @@ public class LaunchResource
    private ResourceFactory resourceFactory;
 
    @Inject
-   private BoosterCatalogFactory boosterCatalogFactory;
+   private BoosterIndexService boosterIndexService;
 
    @Inject
    private UICommandHelper helper;
 
+   @PostConstruct
+   void initialize()
+   {
+      stateToken = WizardStateToken.fromEnvironment();
+      workspaces = WorkspaceManager.getDefault();
+      diskPressure = DiskPressureWatchdog.getDefault();
+      uploadRetries = RetryPolicy.fromEnvironment();
+      retainedArchives = RetainedArchives.fromEnvironment(ForgeInitializer.getRoot().resolveSibling("archives"));
+      archiveCache = ArchiveCaches.fromEnvironment(ForgeInitializer.getRoot().resolveSibling("archive-cache"));
+      speculations = createSpeculationCache();
+      virtualThreads = VirtualThreads.getDefault();
+      generationHeaders = getGenerationHeaders();
+   }
+
+   /**
+    * Logs when Furnace reports each addon as started
+    */
+   void addonStarted(@Observes PostStartup startup)
+   {
+      StartupTimer.mark("addon " + startup.getAddon().getId() + " start");
+   }
+
    void init(@Observes @Local PostStartup startup)
    {
+      StartupTimer.mark("Furnace start");
       try
       {
          // Initialize Catapult URL
          initializeMissionControlServiceURI();
-         executorService.submit(() -> {
-            java.nio.file.Path path = null;
+         // Clean up after the work interrupted by the last shutdown
+         for (Path directory : workspaces.findLeftoverDirectories(PROJECT_DIR_PREFIX))
+         {
+            scheduleDelete(directory);
+         }
+         String journalDirectory = Environment.getEnv(LAUNCHPAD_BACKEND_JOURNAL_DIR);
+         if (journalDirectory != null)
+         {
+            journal = new LaunchJournal(Paths.get(journalDirectory), getJournalSecret());
+            for (LaunchJournal.PendingLaunch pending : journal.getPendingLaunches())
+            {
+               interrupted(pending);
+            }
+         }
+         ExecutorService backgroundExecutor = getBackgroundExecutor();
+         launchQueue.start(backgroundExecutor, getLaunchWorkers());
+         backgroundExecutor.submit(() -> {
             try
             {
-               while ((path = directoriesToDelete.take()) != null)
+               while (true)
                {
-                  log.info("Deleting " + path);
-                  io.openshift.launchpad.backend.util.Paths.deleteDirectory(path);
+                  deleteScheduled(directoriesToDelete.take());
                }
             }
-            catch (IOException io)
-            {
-               log.log(Level.SEVERE, "Error while deleting" + path, io);
-            }
             catch (InterruptedException e)
             {
                // Do nothing
             }
          });
+         if (isWarmupEnabled())
+         {
+            warmUp(backgroundExecutor);
+         }
       }
       catch (Exception e)
       {
@@ -192,28 +335,112 @@ public class LaunchResource
             throws Exception
    {
       validateCommand(commandName);
+      content = restoreState(content, commandName);
       JsonObjectBuilder builder = createObjectBuilder();
       try (CommandController controller = getCommand(commandName, ForgeInitializer.getRoot(), headers))
       {
          controller.getContext().getAttributeMap().put("action", "validate");
-         helper.populateController(content, controller);
-         int stepIndex = content.getInt("stepIndex", 1);
-         if (controller instanceof WizardCommandController)
+         populateSteps(content, controller);
+         helper.describeValidation(builder, controller);
+         helper.describeInputs(builder, controller);
+         helper.describeCurrentState(builder, controller);
+      }
+      return builder.build();
+   }
+
+   /**
+    * Validates a change to a few inputs of the current step. The request contains the inputs as they were before the
+    * change (<code>inputs</code> or <code>stateToken</code>) and the changed inputs (<code>delta</code>). The inputs
+    * are described before and after the change is applied, and only the ones whose description changed are returned
+    * in <code>inputs</code>: the changed inputs and the ones depending on them, with their new value choices. The
+    * <code>messages</code> are the validation messages of these inputs.
+    */
+   @POST
+   @javax.ws.rs.Path("/commands/{commandName}/validate/delta")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public JsonObject validateDelta(JsonObject content,
+            @PathParam("commandName") @DefaultValue(DEFAULT_COMMAND_NAME) String commandName,
+            @Context HttpHeaders headers)
+            throws Exception
+   {
+      validateCommand(commandName);
+      JsonArray delta = content.getJsonArray("delta");
+      if (delta == null)
+      {
+         throw new WebApplicationException("Missing 'delta' attribute", Status.BAD_REQUEST);
+      }
+      Set<String> changed = new LinkedHashSet<>();
+      for (JsonValue value : delta)
+      {
+         JsonValue name = value.getValueType() == ValueType.OBJECT ? ((JsonObject) value).get("name") : null;
+         if (name == null || name.getValueType() != ValueType.STRING)
          {
-            WizardCommandController wizardController = (WizardCommandController) controller;
-            for (int i = 0; i < stepIndex; i++)
+            throw new WebApplicationException("Every 'delta' input must have a string 'name' attribute",
+                     Status.BAD_REQUEST);
+         }
+         changed.add(((JsonString) name).getString());
+      }
+      content = restoreState(content, commandName);
+      JsonObjectBuilder builder = createObjectBuilder();
+      try (CommandController controller = getCommand(commandName, ForgeInitializer.getRoot(), headers))
+      {
+         controller.getContext().getAttributeMap().put("action", "validate");
+         populateSteps(content, controller);
+         Map<String, JsonObject> previous = describeInputsByName(controller);
+         try (Stage stage = AccessLogEntry.stage("populate"))
+         {
+            helper.populateController(createObjectBuilder().add("inputs", delta).build(), controller);
+         }
+         JsonArrayBuilder inputs = createArrayBuilder();
+         JsonArrayBuilder messages = createArrayBuilder();
+         for (Map.Entry<String, JsonObject> entry : describeInputsByName(controller).entrySet())
+         {
+            String name = entry.getKey();
+            if (!changed.contains(name) && entry.getValue().equals(previous.get(name)))
             {
-               wizardController.next().initialize();
-               helper.populateController(content, wizardController);
+               continue;
+            }
+            inputs.add(entry.getValue());
+            InputComponent<?, ?> input = controller.getInput(name);
+            if (input == null)
+            {
+               continue;
+            }
+            for (UIMessage message : controller.validate(input))
+            {
+               messages.add(createObjectBuilder()
+                        .add("description", message.getDescription())
+                        .add("input", name)
+                        .add("severity", message.getSeverity().name()));
             }
          }
-         helper.describeValidation(builder, controller);
-         helper.describeInputs(builder, controller);
+         builder.add("inputs", inputs);
+         builder.add("messages", messages);
          helper.describeCurrentState(builder, controller);
       }
       return builder.build();
    }
 
+   /**
+    * @return the description of the inputs of the current step of the given controller, by input name
+    */
+   private Map<String, JsonObject> describeInputsByName(CommandController controller)
+   {
+      JsonObjectBuilder builder = createObjectBuilder();
+      helper.describeInputs(builder, controller);
+      Map<String, JsonObject> inputs = new LinkedHashMap<>();
+      JsonArray described = builder.build().getJsonArray("inputs");
+      if (described != null)
+      {
+         for (JsonObject input : described.getValuesAs(JsonObject.class))
+         {
+            inputs.put(input.getString("name"), input);
+         }
+      }
+      return inputs;
+   }
+
    @POST
    @javax.ws.rs.Path("/commands/{commandName}/next")
    @Consumes(MediaType.APPLICATION_JSON)
@@ -224,7 +451,7 @@ public class LaunchResource
             throws Exception
    {
       validateCommand(commandName);
-      int stepIndex = content.getInt("stepIndex", 1);
+      content = restoreState(content, commandName);
       JsonObjectBuilder builder = createObjectBuilder();
       try (CommandController controller = getCommand(commandName, ForgeInitializer.getRoot(), headers))
       {
@@ -233,16 +460,19 @@ public class LaunchResource
             throw new WebApplicationException("Controller is not a wizard", Status.BAD_REQUEST);
          }
          controller.getContext().getAttributeMap().put("action", "next");
-         WizardCommandController wizardController = (WizardCommandController) controller;
-         helper.populateController(content, controller);
-         for (int i = 0; i < stepIndex; i++)
-         {
-            wizardController.next().initialize();
-            helper.populateController(content, wizardController);
-         }
+         populateSteps(content, controller);
          helper.describeMetadata(builder, controller);
          helper.describeInputs(builder, controller);
          helper.describeCurrentState(builder, controller);
+         builder.add(STATE_TOKEN, saveState(content, commandName));
+         if (speculations != null && controller.canExecute())
+         {
+            // The wizard is complete: generate the project now, so the download only has to pick it up
+            JsonObject generationContent = content;
+            MultivaluedMap<String, String> requestHeaders = copyHeaders(headers.getRequestHeaders());
+            speculations.start(getGenerationKey(commandName, content, requestHeaders),
+                     () -> generateZip(generationContent, commandName, requestHeaders), getBackgroundExecutor());
+         }
       }
       return builder.build();
    }
@@ -257,19 +487,61 @@ public class LaunchResource
    {
       validateCommand(commandName);
       String stepIndex = form.asMap().remove("stepIndex").get(0);
+      List<String> token = form.asMap().remove(STATE_TOKEN);
       final JsonBuilder jsonBuilder = new JsonBuilder().createJson(Integer.parseInt(stepIndex));
       for (Map.Entry<String, List<String>> entry : form.asMap().entrySet())
       {
          jsonBuilder.addInput(entry.getKey(), entry.getValue());
       }
       JsonObject content = jsonBuilder.build();
-      java.nio.file.Path path = Files.createTempDirectory("projectDir");
-      try (CommandController controller = getCommand(commandName, path, headers))
+      if (token != null)
+      {
+         content = restoreState(content, token.get(0), commandName);
+      }
+      recordStepIndex(content);
+      JsonObject generationContent = content;
+      String key = getGenerationKey(commandName, content, headers.getRequestHeaders());
+      long waitSeconds = getZipWaitSeconds();
+      // Identical concurrent requests share the same archive
+      Response response = zipGenerations.execute(key, () -> {
+         Response speculated = speculations != null ? speculations.take(key, waitSeconds, TimeUnit.SECONDS) : null;
+         if (speculated != null && speculated.getStatus() == Status.OK.getStatusCode())
+         {
+            return speculated;
+         }
+         return generateZip(generationContent, commandName, headers.getRequestHeaders());
+      }, waitSeconds, TimeUnit.SECONDS);
+      return Response.fromResponse(response).build();
+   }
+
+   private Response generateZip(JsonObject content, String commandName, MultivaluedMap<String, String> requestHeaders)
+            throws Exception
+   {
+      String cacheKey = getArchiveCacheKey("zip", commandName, content, requestHeaders);
+      CachedArchive cached = getCachedArchive(cacheKey);
+      if (cached != null)
+      {
+         return createZipResponse(cached.getContents(), cached.getProperties().getOrDefault("artifactId", "booster"));
+      }
+      Response rejected = relieveDiskPressure();
+      if (rejected != null)
+      {
+         return rejected;
+      }
+      java.nio.file.Path path = workspaces.createDirectory(PROJECT_DIR_PREFIX);
+      try (CommandController controller = getCommand(commandName, path, requestHeaders))
       {
-         helper.populateControllerAllInputs(content, controller);
+         try (Stage stage = AccessLogEntry.stage("populate"))
+         {
+            helper.populateControllerAllInputs(content, controller);
+         }
          if (controller.isValid())
          {
-            Result result = controller.execute();
+            Result result;
+            try (Stage stage = AccessLogEntry.stage("execute"))
+            {
+               result = controller.execute();
+            }
             if (result instanceof Failed)
             {
                return Response.serverError().entity(result.getMessage()).build();
@@ -287,13 +559,15 @@ public class LaunchResource
                // Delete Jenkinsfile if exists
                Files.deleteIfExists(projectPath.resolve("Jenkinsfile"));
 
-               String artifactId = findReturnMap(result).getOrDefault("artifactId", "booster");
-               byte[] zipContents = io.openshift.launchpad.backend.util.Paths.zip(artifactId, projectPath);
-               return Response
-                        .ok(zipContents)
-                        .type("application/zip")
-                        .header("Content-Disposition", "attachment; filename=\"" + artifactId + ".zip\"")
-                        .build();
+               Map<String, String> returnMap = findReturnMap(result);
+               String artifactId = returnMap.getOrDefault("artifactId", "booster");
+               byte[] zipContents;
+               try (Stage stage = AccessLogEntry.stage("zip"))
+               {
+                  zipContents = io.openshift.launchpad.backend.util.Paths.zip(artifactId, projectPath);
+               }
+               putCachedArchive(cacheKey, new CachedArchive(zipContents, returnMap));
+               return createZipResponse(zipContents, artifactId);
             }
          }
          else
@@ -305,10 +579,19 @@ public class LaunchResource
       }
       finally
       {
-         directoriesToDelete.offer(path);
+         scheduleDelete(path);
       }
    }
 
+   private static Response createZipResponse(byte[] zipContents, String artifactId)
+   {
+      return Response
+               .ok(zipContents)
+               .type("application/zip")
+               .header("Content-Disposition", "attachment; filename=\"" + artifactId + ".zip\"")
+               .build();
+   }
+
    @POST
    @javax.ws.rs.Path("/commands/{commandName}/missioncontrol")
    @Consumes(MediaType.APPLICATION_JSON)
@@ -319,86 +602,639 @@ public class LaunchResource
             throws Exception
    {
       validateCommand(commandName);
-      java.nio.file.Path path = Files.createTempDirectory("projectDir");
-      try (CommandController controller = getCommand(commandName, path, headers))
+      content = restoreState(content, commandName);
+      return launch(content, commandName, headers.getRequestHeaders(), LaunchListener.NONE);
+   }
+
+   /**
+    * Same as {@link #uploadZip(JsonObject, String, HttpHeaders)}, but the launch runs in the background. The response
+    * contains the job id and points to the stream of events of the launch.
+    */
+   @POST
+   @javax.ws.rs.Path("/commands/{commandName}/missioncontrol/jobs")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response submitLaunch(JsonObject content,
+            @PathParam("commandName") @DefaultValue(DEFAULT_COMMAND_NAME) String commandName,
+            @Context HttpHeaders headers,
+            @Context UriInfo uriInfo)
+   {
+      validateCommand(commandName);
+      // The request headers are not available anymore once this method returns
+      MultivaluedMap<String, String> requestHeaders = copyHeaders(headers.getRequestHeaders());
+      JsonObject launchContent = restoreState(content, commandName);
+      LaunchJob job = launchJobs.create();
+      if (journal != null)
       {
-         helper.populateControllerAllInputs(content, controller);
-         if (controller.isValid())
+         journal.launchSubmitted(job.getId(), commandName, launchContent, requestHeaders);
+      }
+      launchQueue.submit(() -> runLaunch(job, commandName, launchContent, requestHeaders));
+      URI events = uriInfo.getBaseUriBuilder()
+               .path(LaunchResource.class)
+               .path(LaunchResource.class, "launchEvents")
+               .build(job.getId());
+      return Response.accepted(createObjectBuilder().add("jobId", job.getId()).build())
+               .location(events)
+               .build();
+   }
+
+   /**
+    * Returns the events of a launch submitted with {@link #submitLaunch(JsonObject, String, HttpHeaders, UriInfo)} as
+    * Server-Sent Events. The request is suspended until at least one event newer than <code>Last-Event-ID</code> is
+    * published, so no thread is held while the launch runs. The response ends after each batch of events and asks
+    * the <code>EventSource</code> to reconnect right away; it answers 204 once the launch is finished and all of its
+    * events were sent, which stops the reconnections. The events of a launch submitted to another instance sharing the
+    * journal directory are returned once it is finished.
+    */
+   @GET
+   @javax.ws.rs.Path("/jobs/{jobId}/events")
+   @Produces(SERVER_SENT_EVENTS)
+   public void launchEvents(@PathParam("jobId") String jobId,
+            @HeaderParam("Last-Event-ID") @DefaultValue("-1") int lastEventId,
+            @Suspended AsyncResponse response)
+   {
+      LaunchJob local = launchJobs.get(jobId);
+      // Otherwise the launch may have been submitted to another instance
+      LaunchJob job = local != null || journal == null ? local : journal.getJob(jobId);
+      if (job == null)
+      {
+         response.resume(new WebApplicationException("No such job '" + jobId + "'", Status.NOT_FOUND));
+         return;
+      }
+      Consumer<List<LaunchJob.Event>> callback = events -> response.resume(toServerSentEvents(events));
+      response.setTimeout(KEEPALIVE_SECONDS, TimeUnit.SECONDS);
+      response.setTimeoutHandler(timedOut -> {
+         job.cancel(callback);
+         // Keep proxies from closing an idle connection, the client reconnects with the same Last-Event-ID
+         timedOut.resume(serverSentEvents("retry: " + RECONNECT_MILLIS + "\n\n: keepalive\n\n"));
+      });
+      job.awaitEvents(lastEventId + 1, callback);
+   }
+
+   /**
+    * @return the given events of a launch, or 204 if there are none because the launch is finished
+    */
+   private static Response toServerSentEvents(List<LaunchJob.Event> events)
+   {
+      if (events.isEmpty())
+      {
+         return Response.noContent().build();
+      }
+      StringBuilder body = new StringBuilder("retry: ").append(RECONNECT_MILLIS).append("\n\n");
+      for (LaunchJob.Event event : events)
+      {
+         body.append("id: ").append(event.getId())
+                  .append("\nevent: ").append(event.getName())
+                  .append("\ndata: ").append(event.getData())
+                  .append("\n\n");
+      }
+      return serverSentEvents(body);
+   }
+
+   private static Response serverSentEvents(CharSequence body)
+   {
+      return Response.ok(body.toString(), SERVER_SENT_EVENTS).header("Cache-Control", "no-cache").build();
+   }
+
+   /**
+    * Reindexes the catalog. To be called once a change in the booster-catalog happens (webhook). The reindex runs in
+    * the background and requests received in a burst are coalesced. The catalog is only reloaded when a booster
+    * descriptor changed in the catalog repository: a booster repository whose branch moved is not picked up unless
+    * <code>full=true</code> is passed, which reloads the whole catalog.
+    */
+   @POST
+   @javax.ws.rs.Path("/catalog/reindex")
+   @Consumes(MediaType.APPLICATION_JSON)
+   @Produces(MediaType.APPLICATION_JSON)
+   public Response reindex(@QueryParam("token") String token, @QueryParam("full") boolean full)
+   {
+      // Token must match what's on the env var to proceed
+      if (!Objects.equals(token, System.getenv("LAUNCHPAD_BACKEND_CATALOG_REINDEX_TOKEN")))
+      {
+         return Response.status(Status.UNAUTHORIZED).build();
+      }
+      boolean scheduled = boosterIndexService.requestReindex(full);
+      ReindexCoordinator coordinator = boosterIndexService.getReindexCoordinator();
+      return Response.status(Status.ACCEPTED).entity(createObjectBuilder()
+               .add("scheduled", scheduled)
+               .add("triggers", coordinator.getTriggerCount())
+               .add("reindexes", coordinator.getReindexCount())
+               .build()).build();
+   }
+
+   /**
+    * Runs again a launch interrupted by a shutdown, under the same job id. If its credentials cannot be read back from
+    * the journal, it is reported as failed instead, so a client reconnecting to its events gets an outcome.
+    */
+   private void interrupted(LaunchJournal.PendingLaunch pending)
+   {
+      LaunchJob job = launchJobs.create(pending.getId());
+      if (!pending.isReplayable())
+      {
+         log.info("Launch " + pending.getId() + " of " + pending.getCommandName()
+                  + " was interrupted by a shutdown and cannot be run again without its credentials");
+         job.failed(new IllegalStateException("The launch was interrupted by a restart, please submit it again"));
+         journal.launchFinished(job);
+         return;
+      }
+      log.info("Running again launch " + pending.getId() + " of " + pending.getCommandName()
+               + ", interrupted by a shutdown");
+      MultivaluedMap<String, String> requestHeaders = copyHeaders(pending.getHeaders());
+      launchQueue.submit(() -> runLaunch(job, pending.getCommandName(), pending.getContent(), requestHeaders));
+   }
+
+   /**
+    * Records the JVM with JDK Flight Recorder for the given number of seconds (30 by default, at most 300) and returns
+    * the recording. Only available when a token is defined in LAUNCHPAD_BACKEND_PROFILING_TOKEN.
+    */
+   @POST
+   @javax.ws.rs.Path("/profile")
+   @Produces(MediaType.APPLICATION_OCTET_STREAM)
+   public void profile(@QueryParam("token") String token,
+            @QueryParam("seconds") @DefaultValue("30") int seconds,
+            @Suspended AsyncResponse response)
+   {
+      // Token must match what's on the env var to proceed
+      String expected = System.getenv(LAUNCHPAD_BACKEND_PROFILING_TOKEN);
+      if (expected == null || !Objects.equals(token, expected))
+      {
+         response.resume(Response.status(Status.UNAUTHORIZED).build());
+         return;
+      }
+      if (!FlightRecorders.isAvailable())
+      {
+         response.resume(Response.status(Status.NOT_IMPLEMENTED)
+                  .entity("JDK Flight Recorder is not available in this JVM").type(MediaType.TEXT_PLAIN).build());
+         return;
+      }
+      int duration = Math.max(1, Math.min(seconds, MAX_PROFILING_SECONDS));
+      response.setTimeout(duration + 60L, TimeUnit.SECONDS);
+      // Don't hold a request thread while recording
+      getBackgroundExecutor().submit(() -> {
+         try
+         {
+            java.nio.file.Path recording = Files.createTempFile("launchpad", ".jfr");
+            if (!FlightRecorders.record(duration, TimeUnit.SECONDS, recording))
+            {
+               Files.delete(recording);
+               response.resume(Response.status(Status.CONFLICT)
+                        .entity("A recording is already running").type(MediaType.TEXT_PLAIN).build());
+               return;
+            }
+            StreamingOutput output = out -> {
+               try
+               {
+                  Files.copy(recording, out);
+               }
+               finally
+               {
+                  Files.delete(recording);
+               }
+            };
+            response.resume(Response.ok(output)
+                     .header("Content-Disposition", "attachment; filename=\"launchpad.jfr\"").build());
+         }
+         catch (Exception e)
+         {
+            log.log(Level.SEVERE, "Error while recording", e);
+            response.resume(e);
+         }
+      });
+   }
+
+   private void runLaunch(LaunchJob job, String commandName, JsonObject content,
+            MultivaluedMap<String, String> requestHeaders)
+   {
+      AccessLogEntry entry = new AccessLogEntry("JOB", "/launchpad/jobs/" + job.getId());
+      entry.setCommand(commandName);
+      AccessLogEntry previous = AccessLogEntry.bind(entry);
+      int status = Status.INTERNAL_SERVER_ERROR.getStatusCode();
+      try
+      {
+         Response response = launch(content, commandName, requestHeaders, job);
+         status = response.getStatus();
+         job.completed(response);
+      }
+      catch (Exception e)
+      {
+         log.log(Level.SEVERE, "Error while launching job " + job.getId(), e);
+         job.failed(e);
+      }
+      finally
+      {
+         if (journal != null)
          {
-            Result result = controller.execute();
+            journal.launchFinished(job);
+         }
+         entry.finish(status);
+         AccessLog.getDefault().log(entry);
+         AccessLogEntry.bind(previous);
+      }
+   }
+
+   /**
+    * Generates the project described by the given content and uploads it to Mission Control
+    */
+   private Response launch(JsonObject content, String commandName, MultivaluedMap<String, String> requestHeaders,
+            LaunchListener listener) throws Exception
+   {
+      recordStepIndex(content);
+      String generationKey = getGenerationKey(commandName, content, requestHeaders);
+      String authorization = requestHeaders.getFirst(HttpHeaders.AUTHORIZATION);
+      RetainedArchive archive = retainedArchives.get(generationKey, authorization);
+      String cacheKey = getArchiveCacheKey("missioncontrol", commandName, content, requestHeaders);
+      if (archive != null)
+      {
+         log.info("Uploading the archive retained from a previous launch");
+      }
+      else
+      {
+         CachedArchive cached = getCachedArchive(cacheKey);
+         if (cached != null)
+         {
+            archive = retainedArchives.retain(generationKey, authorization, cached.getContents(),
+                     cached.getProperties());
+         }
+      }
+      if (archive == null)
+      {
+         Response rejected = relieveDiskPressure();
+         if (rejected != null)
+         {
+            return rejected;
+         }
+         java.nio.file.Path path = workspaces.createDirectory(PROJECT_DIR_PREFIX);
+         try (CommandController controller = getCommand(commandName, path, requestHeaders))
+         {
+            try (Stage stage = AccessLogEntry.stage("populate"))
+            {
+               helper.populateControllerAllInputs(content, controller);
+            }
+            if (!controller.isValid())
+            {
+               JsonObjectBuilder builder = createObjectBuilder();
+               helper.describeValidation(builder, controller);
+               return Response.status(Status.PRECONDITION_FAILED).entity(builder.build()).build();
+            }
+            listener.generationStarted();
+            Result result;
+            try (Stage stage = AccessLogEntry.stage("execute"))
+            {
+               result = controller.execute();
+            }
+            listener.generationFinished();
             if (result instanceof Failed)
             {
                return Response.serverError().entity(result.getMessage()).build();
             }
-            else
+            Map<String, String> returnMap = findReturnMap(result);
+            UISelection<?> selection = controller.getContext().getSelection();
+            java.nio.file.Path projectPath = Paths.get(selection.get().toString());
+            String artifactId = returnMap.getOrDefault("named", "booster");
+            byte[] zipContents;
+            try (Stage stage = AccessLogEntry.stage("zip"))
             {
-               Map<String, String> returnMap = findReturnMap(result);
-               UISelection<?> selection = controller.getContext().getSelection();
-               java.nio.file.Path projectPath = Paths.get(selection.get().toString());
-               String artifactId = returnMap.getOrDefault("named", "booster");
-               byte[] zipContents = io.openshift.launchpad.backend.util.Paths.zip(artifactId, projectPath);
-               Client client = ClientBuilder.newBuilder().build();
-               try
+               zipContents = io.openshift.launchpad.backend.util.Paths.zip(artifactId, projectPath);
+            }
+            putCachedArchive(cacheKey, new CachedArchive(zipContents, returnMap));
+            // Kept until the upload is confirmed, so a retry doesn't generate it again
+            archive = retainedArchives.retain(generationKey, authorization, zipContents, returnMap);
+         }
+         finally
+         {
+            scheduleDelete(path);
+         }
+      }
+      listener.archiveCreated(archive.getSize());
+      AccessLogEntry entry = AccessLogEntry.current();
+      if (entry != null)
+      {
+         entry.setArchiveSize(archive.getSize());
+      }
+      Response response;
+      try (Stage stage = AccessLogEntry.stage("upload"))
+      {
+         response = upload(archive, authorization, listener);
+      }
+      if (response.getStatus() == Response.Status.OK.getStatusCode())
+      {
+         retainedArchives.release(archive);
+      }
+      return response;
+   }
+
+   /**
+    * Uploads the given archive to Mission Control, retrying on connection errors and server errors
+    */
+   private Response upload(RetainedArchive archive, String authorization, LaunchListener listener) throws Exception
+   {
+      Client client = ClientBuilder.newBuilder().build();
+      try
+      {
+         WebTarget target = client.target(missionControlURI)
+                  .property(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA);
+         for (int attempt = 1;; attempt++)
+         {
+            try (InputStream archiveStream = archive.openStream())
+            {
+               // Create request body
+               MultipartFormDataOutput form = new MultipartFormDataOutput();
+               InputStream zipStream = new ProgressInputStream(archiveStream, UPLOAD_PROGRESS_STEP,
+                        bytes -> listener.uploadProgress(bytes, archive.getSize()));
+               form.addFormData("file", zipStream, MediaType.MULTIPART_FORM_DATA_TYPE, "project.zip");
+
+               archive.getProperties()
+                        .forEach((k, v) -> form.addFormData(k, v, MediaType.APPLICATION_FORM_URLENCODED_TYPE));
+
+               // Execute POST Request
+               Response response = target.request()
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA)
+                        // Propagate Authorization header
+                        .header(HttpHeaders.AUTHORIZATION, authorization)
+                        .header(IDEMPOTENCY_KEY, archive.getIdempotencyKey())
+                        .post(Entity.entity(form, MediaType.MULTIPART_FORM_DATA_TYPE));
+               if (response.getStatus() == Response.Status.OK.getStatusCode())
                {
-                  WebTarget target = client.target(missionControlURI)
-                           .property(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA);
-
-                  // Create request body
-                  MultipartFormDataOutput form = new MultipartFormDataOutput();
-                  form.addFormData("file", new ByteArrayInputStream(zipContents),
-                           MediaType.MULTIPART_FORM_DATA_TYPE, "project.zip");
-
-                  returnMap.forEach((k, v) -> form.addFormData(k, v, MediaType.APPLICATION_FORM_URLENCODED_TYPE));
-
-                  // Execute POST Request
-                  Response response = target.request()
-                           .header(HttpHeaders.CONTENT_TYPE, MediaType.MULTIPART_FORM_DATA)
-                           // Propagate Authorization header
-                           .header(HttpHeaders.AUTHORIZATION, headers.getHeaderString(HttpHeaders.AUTHORIZATION))
-                           .post(Entity.entity(form, MediaType.MULTIPART_FORM_DATA_TYPE));
-                  if (response.getStatus() == Response.Status.OK.getStatusCode())
-                  {
-                     return Response.ok(response.readEntity(String.class), MediaType.APPLICATION_JSON).build();
-                  }
-                  else
-                  {
-                     return Response.status(response.getStatusInfo()).build();
-                  }
+                  return Response.ok(response.readEntity(String.class), MediaType.APPLICATION_JSON).build();
                }
-               finally
+               response.close();
+               if (!uploadRetries.isRetryable(response.getStatus()) || attempt >= uploadRetries.getMaxAttempts())
                {
-                  client.close();
+                  return Response.status(response.getStatusInfo()).build();
                }
+               log.warning("Mission Control answered " + response.getStatus() + ", retrying the upload");
             }
+            catch (ProcessingException e)
+            {
+               if (attempt >= uploadRetries.getMaxAttempts())
+               {
+                  throw e;
+               }
+               log.log(Level.WARNING, "Error while uploading to Mission Control, retrying the upload", e);
+            }
+            Thread.sleep(uploadRetries.getDelayMillis(attempt));
+         }
+      }
+      finally
+      {
+         client.close();
+      }
+   }
+
+   private void scheduleDelete(Path directory)
+   {
+      diskPressure.cleanupScheduled();
+      directoriesToDelete.offer(directory);
+   }
+
+   private void deleteScheduled(Path path)
+   {
+      try
+      {
+         long deleted = 0;
+         if (Files.exists(path))
+         {
+            log.info("Deleting " + path);
+            try (Stage stage = AccessLogEntry.stage("delete"))
+            {
+               deleted = io.openshift.launchpad.backend.util.Paths.deleteDirectory(path);
+            }
+         }
+         failedDeletes.remove(path);
+         workspaces.release(path);
+         diskPressure.cleanupFinished(deleted);
+      }
+      catch (IOException io)
+      {
+         int attempts = failedDeletes.merge(path, 1, Integer::sum);
+         if (attempts < MAX_DELETE_ATTEMPTS)
+         {
+            // The directory is still on disk, so it stays pending for the disk pressure
+            log.log(Level.WARNING, "Error while deleting " + path + ", will try again", io);
+            directoriesToDelete.offer(path);
          }
          else
          {
-            JsonObjectBuilder builder = createObjectBuilder();
-            helper.describeValidation(builder, controller);
-            return Response.status(Status.PRECONDITION_FAILED).entity(builder.build()).build();
+            log.log(Level.SEVERE, "Error while deleting " + path + ", giving up after " + attempts + " attempts", io);
+            failedDeletes.remove(path);
+            workspaces.release(path);
+            diskPressure.cleanupFinished(0);
          }
       }
-      finally
+   }
+
+   /**
+    * Deletes some of the directories waiting for cleanup when the disk pressure is high, before generating another
+    * project
+    *
+    * @return a response rejecting the generation if the disk pressure is still critical, null otherwise
+    */
+   private Response relieveDiskPressure()
+   {
+      Pressure pressure = diskPressure.getPressure();
+      java.nio.file.Path path;
+      for (int i = 0; i < MAX_CLEANUPS_PER_GENERATION && pressure != Pressure.NORMAL
+               && (path = directoriesToDelete.poll()) != null; i++)
+      {
+         deleteScheduled(path);
+         pressure = diskPressure.getPressure();
+      }
+      if (pressure == Pressure.CRITICAL)
       {
-         directoriesToDelete.offer(path);
+         return Response.status(Status.SERVICE_UNAVAILABLE)
+                  .header("Retry-After", DISK_PRESSURE_RETRY_SECONDS)
+                  .entity("Not enough disk space to generate the project, please retry later")
+                  .type(MediaType.TEXT_PLAIN)
+                  .build();
       }
+      return null;
    }
 
    /**
-    * Reindexes the catalog. To be called once a change in the booster-catalog happens (webhook)
+    * Merges the inputs stored in the <code>stateToken</code> attribute, if any, with the inputs of the request. The
+    * inputs of the request take precedence.
     */
-   @POST
-   @javax.ws.rs.Path("/catalog/reindex")
-   @Consumes(MediaType.APPLICATION_JSON)
-   public Response reindex(@QueryParam("token") String token)
+   private JsonObject restoreState(JsonObject content, String commandName)
    {
-      // Token must match what's on the env var to proceed
-      if (!Objects.equals(token, System.getenv("LAUNCHPAD_BACKEND_CATALOG_REINDEX_TOKEN")))
+      return restoreState(content, content.getString(STATE_TOKEN, null), commandName);
+   }
+
+   private JsonObject restoreState(JsonObject content, String token, String commandName)
+   {
+      if (token == null)
       {
-         return Response.status(Status.UNAUTHORIZED).build();
+         return content;
+      }
+      JsonObject state;
+      try
+      {
+         state = stateToken.decode(token);
+      }
+      catch (IllegalArgumentException e)
+      {
+         throw new WebApplicationException(e.getMessage(), Status.BAD_REQUEST);
+      }
+      if (!commandName.equals(state.getString("command", null)))
+      {
+         throw new WebApplicationException("Wizard state token does not belong to command '" + commandName + "'",
+                  Status.BAD_REQUEST);
+      }
+      Map<String, JsonObject> inputs = new LinkedHashMap<>();
+      for (JsonObject input : state.getJsonArray("inputs").getValuesAs(JsonObject.class))
+      {
+         inputs.put(input.getString("name"), input);
+      }
+      JsonArray requestInputs = content.getJsonArray("inputs");
+      if (requestInputs != null)
+      {
+         for (JsonObject input : requestInputs.getValuesAs(JsonObject.class))
+         {
+            inputs.put(input.getString("name"), input);
+         }
+      }
+      JsonArrayBuilder mergedInputs = createArrayBuilder();
+      inputs.values().forEach(mergedInputs::add);
+      JsonObjectBuilder merged = createObjectBuilder();
+      content.forEach((key, value) -> {
+         if (!STATE_TOKEN.equals(key) && !"inputs".equals(key) && !"stepIndex".equals(key))
+         {
+            merged.add(key, value);
+         }
+      });
+      return merged.add("inputs", mergedInputs)
+               .add("stepIndex", content.getInt("stepIndex", state.getInt("stepIndex", 1)))
+               .build();
+   }
+
+   /**
+    * @return a token containing the inputs of the given content, to be restored by
+    *         {@link #restoreState(JsonObject, String)}
+    */
+   private String saveState(JsonObject content, String commandName)
+   {
+      JsonArray inputs = content.getJsonArray("inputs");
+      return stateToken.encode(createObjectBuilder()
+               .add("command", commandName)
+               .add("stepIndex", content.getInt("stepIndex", 1))
+               .add("inputs", inputs != null ? inputs : createArrayBuilder().build())
+               .build());
+   }
+
+   /**
+    * Populates the controller with the given content and moves a wizard up to the requested <code>stepIndex</code>
+    */
+   private void populateSteps(JsonObject content, CommandController controller) throws Exception
+   {
+      recordStepIndex(content);
+      try (Stage stage = AccessLogEntry.stage("populate"))
+      {
+         helper.populateController(content, controller);
+         int stepIndex = content.getInt("stepIndex", 1);
+         if (controller instanceof WizardCommandController)
+         {
+            WizardCommandController wizardController = (WizardCommandController) controller;
+            for (int i = 0; i < stepIndex; i++)
+            {
+               wizardController.next().initialize();
+               helper.populateController(content, wizardController);
+            }
+         }
+      }
+   }
+
+   private static void recordStepIndex(JsonObject content)
+   {
+      AccessLogEntry entry = AccessLogEntry.current();
+      if (entry != null)
+      {
+         entry.setStepIndex(content.getInt("stepIndex", 1));
+      }
+   }
+
+   /**
+    * The request headers are copied to the attributes of the {@link RestUIContext}, but most of them describe the
+    * request rather than the project (request ids, tracing, proxies) and the credentials are only used for the Mission
+    * Control upload. Only the headers listed in LAUNCHPAD_BACKEND_GENERATION_HEADERS are part of the key, so requests
+    * differing by the other ones still share one generation.
+    *
+    * @return a key identifying the project generated from the given content and request headers, whatever the order
+    *         of the inputs and whether single values are sent as arrays or not
+    */
+   private String getGenerationKey(String commandName, JsonObject content,
+            MultivaluedMap<String, String> requestHeaders)
+   {
+      Map<String, JsonValue> inputs = new TreeMap<>();
+      for (JsonObject input : content.getJsonArray("inputs").getValuesAs(JsonObject.class))
+      {
+         JsonValue value = input.get("value");
+         if (value != null && value.getValueType() != ValueType.ARRAY)
+         {
+            value = createArrayBuilder().add(value).build();
+         }
+         inputs.put(input.getString("name"), value != null ? value : JsonValue.NULL);
+      }
+      JsonObjectBuilder key = createObjectBuilder();
+      inputs.forEach(key::add);
+      Map<String, List<String>> attributes = new TreeMap<>();
+      if (requestHeaders != null && !generationHeaders.isEmpty())
+      {
+         requestHeaders.forEach((name, values) -> {
+            String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+            if (generationHeaders.contains(lowerCaseName))
+            {
+               attributes.put(lowerCaseName, values);
+            }
+         });
+      }
+      return commandName + ":" + key.build() + (attributes.isEmpty() ? "" : ":" + attributes);
+   }
+
+   /**
+    * @return the key of the archive generated from the given content in the {@link ArchiveCache}, null while the
+    *         catalog is loading or reindexing, so no archive is cached then
+    */
+   private String getArchiveCacheKey(String kind, String commandName, JsonObject content,
+            MultivaluedMap<String, String> requestHeaders)
+   {
+      String catalogKey = boosterIndexService.getCatalogKey();
+      if (catalogKey == null)
+      {
+         return null;
+      }
+      return kind + ":" + catalogKey + ":" + getGenerationKey(commandName, content, requestHeaders);
+   }
+
+   private CachedArchive getCachedArchive(String key)
+   {
+      if (key == null)
+      {
+         return null;
+      }
+      try (Stage stage = AccessLogEntry.stage("cache"))
+      {
+         return archiveCache.get(key);
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Error while reading the archive cache", e);
+         return null;
+      }
+   }
+
+   private void putCachedArchive(String key, CachedArchive archive)
+   {
+      if (key == null)
+      {
+         return;
+      }
+      try
+      {
+         archiveCache.put(key, archive);
+      }
+      catch (IOException e)
+      {
+         log.log(Level.WARNING, "Error while writing the archive cache", e);
       }
-      boosterCatalogFactory.reset();
-      return Response.ok().build();
    }
 
    /**
@@ -432,6 +1268,108 @@ public class LaunchResource
       }
    }
 
+   private static int getLaunchWorkers()
+   {
+      return Environment.getInt(LAUNCHPAD_BACKEND_LAUNCH_WORKERS, 4);
+   }
+
+   /**
+    * @return the secret encrypting the credentials in the launch journal, or null if they are not journaled
+    */
+   private static byte[] getJournalSecret()
+   {
+      String secret = Environment.getEnv(LAUNCHPAD_BACKEND_JOURNAL_SECRET);
+      if (secret == null)
+      {
+         log.warning(LAUNCHPAD_BACKEND_JOURNAL_SECRET + " is not set. Launches interrupted by a shutdown will fail");
+         return null;
+      }
+      return secret.getBytes(StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Loads and indexes the booster catalog, and loads the addons behind each command, in parallel so the first
+    * requests don't pay for it. Nothing waits for the warm-up: a request arriving earlier resolves the services it
+    * needs itself.
+    */
+   private void warmUp(ExecutorService executor)
+   {
+      List<CompletableFuture<Void>> tasks = new ArrayList<>();
+      tasks.add(CompletableFuture.runAsync(() -> StartupTimer.time("launchpad-catalog", () -> {
+         boosterIndexService.awaitIndex();
+         StartupTimer.mark("catalog load");
+      }), executor));
+      for (String commandName : commandMap.keySet())
+      {
+         tasks.add(CompletableFuture.runAsync(() -> StartupTimer.time(commandName, () -> {
+            try (CommandController controller = getCommand(commandName, ForgeInitializer.getRoot(),
+                     (MultivaluedMap<String, String>) null))
+            {
+               helper.describeController(createObjectBuilder(), controller);
+            }
+            catch (Exception e)
+            {
+               throw new CompletionException(e);
+            }
+         }), executor));
+      }
+      CompletableFuture.allOf(tasks.toArray(new CompletableFuture[tasks.size()])).whenComplete((result, e) -> {
+         if (e != null)
+         {
+            log.log(Level.SEVERE, "Error while warming up cache", e);
+         }
+         StartupTimer.mark("warm-up");
+         StartupTimer.report();
+      });
+   }
+
+   /**
+    * @return the {@link ExecutorService} running the work not bound to a request
+    */
+   private ExecutorService getBackgroundExecutor()
+   {
+      return virtualThreads != null ? virtualThreads : executorService;
+   }
+
+   /**
+    * @return the cache of the projects generated when the wizard is complete, or null if disabled
+    */
+   private static SpeculationCache<String, Response> createSpeculationCache()
+   {
+      if (!Environment.getBoolean(LAUNCHPAD_BACKEND_SPECULATIVE_GENERATION, false))
+      {
+         return null;
+      }
+      return new SpeculationCache<>(Environment.getInt(LAUNCHPAD_BACKEND_SPECULATIVE_CACHE_SIZE, 32),
+               Environment.getLong(LAUNCHPAD_BACKEND_SPECULATIVE_TTL_SECONDS, 120), TimeUnit.SECONDS);
+   }
+
+   /**
+    * @return the lower case names of the headers listed in LAUNCHPAD_BACKEND_GENERATION_HEADERS, separated by commas
+    */
+   private static Set<String> getGenerationHeaders()
+   {
+      Set<String> names = new HashSet<>();
+      for (String name : Environment.getEnv(LAUNCHPAD_BACKEND_GENERATION_HEADERS, "").split(","))
+      {
+         if (!name.trim().isEmpty())
+         {
+            names.add(name.trim().toLowerCase(Locale.ENGLISH));
+         }
+      }
+      return names;
+   }
+
+   private static long getZipWaitSeconds()
+   {
+      return Environment.getLong(LAUNCHPAD_BACKEND_ZIP_WAIT_SECONDS, 60);
+   }
+
+   private static boolean isWarmupEnabled()
+   {
+      return Environment.getBoolean(LAUNCHPAD_BACKEND_WARMUP, true);
+   }
+
    private void initializeMissionControlServiceURI()
    {
       String host = System.getProperty(LAUNCHPAD_MISSIONCONTROL_SERVICE_HOST,
@@ -449,27 +1387,48 @@ public class LaunchResource
 
    private CommandController getCommand(String name, Path initialPath, HttpHeaders headers) throws Exception
    {
-      RestUIContext context = createUIContext(initialPath, headers);
-      UICommand command = commandFactory.getNewCommandByName(context, commandMap.get(name));
-      CommandController controller = controllerFactory.createController(context,
-               new RestUIRuntime(Collections.emptyList()), command);
-      controller.initialize();
-      return controller;
+      return getCommand(name, initialPath, headers == null ? null : headers.getRequestHeaders());
+   }
+
+   private CommandController getCommand(String name, Path initialPath, MultivaluedMap<String, String> requestHeaders)
+            throws Exception
+   {
+      try (Stage stage = AccessLogEntry.stage("controller"))
+      {
+         RestUIContext context = createUIContext(initialPath, requestHeaders);
+         UICommand command = commandFactory.getNewCommandByName(context, commandMap.get(name));
+         CommandController controller = controllerFactory.createController(context,
+                  new RestUIRuntime(Collections.emptyList()), command);
+         controller.initialize();
+         return controller;
+      }
    }
 
-   private RestUIContext createUIContext(Path initialPath, HttpHeaders headers)
+   private RestUIContext createUIContext(Path initialPath, MultivaluedMap<String, String> requestHeaders)
    {
       Resource<?> selection = resourceFactory.create(initialPath.toFile());
       RestUIContext context = new RestUIContext(selection, Collections.emptyList());
-      if (headers != null)
+      if (requestHeaders != null)
       {
          Map<Object, Object> attributeMap = context.getAttributeMap();
-         MultivaluedMap<String, String> requestHeaders = headers.getRequestHeaders();
-         requestHeaders.keySet().forEach(key -> attributeMap.put(stripPrefix(key, "X-"), headers.getRequestHeader(key)));
+         requestHeaders.forEach((key, values) -> attributeMap.put(stripPrefix(key, "X-"), values));
       }
       return context;
    }
 
+   /**
+    * Copies the request headers, so they can be used outside of the request thread
+    */
+   private static MultivaluedMap<String, String> copyHeaders(Map<String, List<String>> headers)
+   {
+      MultivaluedMap<String, String> copy = new AbstractMultivaluedMap<String, String>(
+               new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+      {
+      };
+      headers.forEach((key, values) -> copy.put(key, new ArrayList<>(values)));
+      return copy;
+   }
+
    static private String stripPrefix(String value, String prefix) {
       if( value.startsWith(prefix) ) {
          return value.substring(prefix.length());
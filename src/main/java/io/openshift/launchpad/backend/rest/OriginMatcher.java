@@ -0,0 +1,82 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Matches request origins against a set of allowed origins, compiled once. An allowed origin is either "*" (any
+ * origin), an exact origin (eg. <code>https://launch.openshift.io</code>) or a pattern where "*" stands for one or more
+ * host labels (eg. <code>https://*.openshift.io</code>).
+ */
+public class OriginMatcher
+{
+   private static final String HOST_LABELS = "[a-zA-Z0-9-]+(?:\\.[a-zA-Z0-9-]+)*";
+
+   private final boolean anyOrigin;
+   private final Set<String> exactOrigins = new HashSet<>();
+   private final Pattern originPatterns;
+
+   public OriginMatcher(Collection<String> allowedOrigins)
+   {
+      boolean any = false;
+      StringBuilder patterns = new StringBuilder();
+      for (String origin : allowedOrigins)
+      {
+         if ("*".equals(origin))
+         {
+            any = true;
+         }
+         else if (origin.contains("*"))
+         {
+            if (patterns.length() > 0)
+            {
+               patterns.append('|');
+            }
+            patterns.append("(?:");
+            String[] parts = origin.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++)
+            {
+               if (i > 0)
+               {
+                  patterns.append(HOST_LABELS);
+               }
+               patterns.append(Pattern.quote(parts[i]));
+            }
+            patterns.append(')');
+         }
+         else
+         {
+            exactOrigins.add(origin);
+         }
+      }
+      this.anyOrigin = any;
+      this.originPatterns = patterns.length() > 0 ? Pattern.compile(patterns.toString(), Pattern.CASE_INSENSITIVE)
+               : null;
+   }
+
+   /**
+    * @return true if the given origin is allowed
+    */
+   public boolean matches(String origin)
+   {
+      return anyOrigin || exactOrigins.contains(origin)
+               || (originPatterns != null && originPatterns.matcher(origin).matches());
+   }
+}
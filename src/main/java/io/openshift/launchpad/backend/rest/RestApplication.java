@@ -15,6 +15,9 @@
  */
 package io.openshift.launchpad.backend.rest;
 
+import static io.openshift.launchpad.backend.util.Environment.getEnv;
+import static io.openshift.launchpad.backend.util.Environment.getInt;
+
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -22,6 +25,8 @@ import java.util.Set;
 import javax.ws.rs.ApplicationPath;
 import javax.ws.rs.core.Application;
 
+import io.openshift.launchpad.backend.log.AccessLog;
+
 /**
  *
  * @author <a href="mailto:ggastald@redhat.com">George Gastaldi</a>
@@ -29,6 +34,11 @@ import javax.ws.rs.core.Application;
 @ApplicationPath("/")
 public class RestApplication extends Application
 {
+   private static final String LAUNCHPAD_BACKEND_CORS_ALLOWED_ORIGINS = "LAUNCHPAD_BACKEND_CORS_ALLOWED_ORIGINS";
+   private static final String LAUNCHPAD_BACKEND_CORS_MAX_AGE = "LAUNCHPAD_BACKEND_CORS_MAX_AGE";
+   private static final String LAUNCHPAD_BACKEND_GZIP_THRESHOLD = "LAUNCHPAD_BACKEND_GZIP_THRESHOLD";
+   private static final String LAUNCHPAD_BACKEND_GZIP_LEVEL = "LAUNCHPAD_BACKEND_GZIP_LEVEL";
+
    private Set<Object> singletons;
 
    @Override
@@ -46,11 +56,23 @@ public class RestApplication extends Application
       if (singletons == null)
       {
          CorsFilter corsFilter = new CorsFilter();
-         corsFilter.getAllowedOrigins().add("*");
+         for (String origin : getEnv(LAUNCHPAD_BACKEND_CORS_ALLOWED_ORIGINS, "*").split(","))
+         {
+            corsFilter.getAllowedOrigins().add(origin.trim());
+         }
          corsFilter.setExposedHeaders("Content-Disposition");
+         // Let browsers reuse the preflight responses instead of sending one before every request
+         corsFilter.setCorsMaxAge(getInt(LAUNCHPAD_BACKEND_CORS_MAX_AGE, 86400));
+
+         GZipEncoder gzipEncoder = new GZipEncoder();
+         gzipEncoder.setThreshold(getInt(LAUNCHPAD_BACKEND_GZIP_THRESHOLD, 1024));
+         gzipEncoder.setLevel(getInt(LAUNCHPAD_BACKEND_GZIP_LEVEL, 6));
 
          singletons = new LinkedHashSet<>();
+         singletons.add(new AccessLogFilter(AccessLog.getDefault()));
          singletons.add(corsFilter);
+         singletons.add(gzipEncoder);
+         singletons.add(new JsonStructureWriter());
       }
       return singletons;
    }
@@ -0,0 +1,42 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.rest;
+
+import java.util.concurrent.ExecutorService;
+
+import javax.servlet.ServletContext;
+
+import io.openshift.launchpad.backend.util.VirtualThreads;
+import io.undertow.servlet.ServletExtension;
+import io.undertow.servlet.api.DeploymentInfo;
+
+/**
+ * Runs the servlet requests on virtual threads instead of the Undertow worker pool when they are enabled, see
+ * {@link VirtualThreads#getDefault()}. The REST resources stay synchronous: when virtual threads are disabled, the
+ * requests are dispatched exactly as before.
+ */
+public class VirtualThreadsServletExtension implements ServletExtension
+{
+   @Override
+   public void handleDeployment(DeploymentInfo deploymentInfo, ServletContext servletContext)
+   {
+      ExecutorService virtualThreads = VirtualThreads.getDefault();
+      if (virtualThreads != null)
+      {
+         deploymentInfo.setExecutor(virtualThreads);
+      }
+   }
+}
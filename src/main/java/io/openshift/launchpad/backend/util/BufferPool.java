@@ -0,0 +1,76 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of {@link ByteBuffer}s of the same size, so I/O loops reuse their buffers instead of allocating new ones on
+ * each call. When the pool is empty a new buffer is allocated, and buffers released to a full pool are dropped.
+ */
+public class BufferPool
+{
+   private final int bufferSize;
+   private final boolean direct;
+   private final BlockingQueue<ByteBuffer> buffers;
+
+   /**
+    * @param bufferSize the capacity of the buffers
+    * @param maxBuffers the number of buffers kept for reuse
+    * @param direct true for direct buffers, false for heap buffers (backed by an array)
+    */
+   public BufferPool(int bufferSize, int maxBuffers, boolean direct)
+   {
+      this.bufferSize = bufferSize;
+      this.direct = direct;
+      this.buffers = new ArrayBlockingQueue<>(maxBuffers);
+   }
+
+   /**
+    * @return a cleared buffer, to be given back with {@link #release(ByteBuffer)}
+    */
+   public ByteBuffer acquire()
+   {
+      ByteBuffer buffer = buffers.poll();
+      if (buffer == null)
+      {
+         buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+      }
+      buffer.clear();
+      return buffer;
+   }
+
+   /**
+    * Gives back a buffer obtained from {@link #acquire()}. The buffer must not be used afterwards.
+    */
+   public void release(ByteBuffer buffer)
+   {
+      if (buffer != null)
+      {
+         buffers.offer(buffer);
+      }
+   }
+
+   /**
+    * @return the number of buffers available for reuse
+    */
+   public int available()
+   {
+      return buffers.size();
+   }
+}
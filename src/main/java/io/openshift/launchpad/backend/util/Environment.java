@@ -0,0 +1,101 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+/**
+ * Reads the configuration of the backend. A system property takes precedence over the environment variable of the
+ * same name.
+ */
+public final class Environment
+{
+   private Environment()
+   {
+   }
+
+   /**
+    * @return the value of the given system property or environment variable, or null if neither is set
+    */
+   public static String getEnv(String name)
+   {
+      return System.getProperty(name, System.getenv(name));
+   }
+
+   /**
+    * @return the value of the given system property or environment variable, or the default value if neither is set
+    */
+   public static String getEnv(String name, String defaultValue)
+   {
+      String value = getEnv(name);
+      return value != null ? value : defaultValue;
+   }
+
+   /**
+    * @return the boolean value of the given system property or environment variable, or the default value if neither
+    *         is set
+    */
+   public static boolean getBoolean(String name, boolean defaultValue)
+   {
+      String value = getEnv(name);
+      return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+   }
+
+   /**
+    * @return the integer value of the given system property or environment variable, or the default value if neither
+    *         is set
+    * @throws IllegalArgumentException if the value is not an integer
+    */
+   public static int getInt(String name, int defaultValue)
+   {
+      long value = getLong(name, defaultValue);
+      if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+      {
+         throw new IllegalArgumentException(name + " is out of range: " + value);
+      }
+      return (int) value;
+   }
+
+   /**
+    * @return the long value of the given system property or environment variable, or the default value if neither is
+    *         set
+    * @throws IllegalArgumentException if the value is not an integer
+    */
+   public static long getLong(String name, long defaultValue)
+   {
+      String value = getEnv(name);
+      if (value == null)
+      {
+         return defaultValue;
+      }
+      try
+      {
+         return Long.parseLong(value.trim());
+      }
+      catch (NumberFormatException e)
+      {
+         throw new IllegalArgumentException(name + " must be an integer, but is '" + value + "'", e);
+      }
+   }
+
+   /**
+    * @return the size in bytes given in megabytes by the system property or environment variable, or by the default
+    *         value if neither is set
+    * @throws IllegalArgumentException if the value is not an integer
+    */
+   public static long getMegabytes(String name, long defaultMegabytes)
+   {
+      return getLong(name, defaultMegabytes) * 1024 * 1024;
+   }
+}
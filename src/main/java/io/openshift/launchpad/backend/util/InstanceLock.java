@@ -0,0 +1,130 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * An exclusive lock on a file, held by an instance for as long as it is running. The files an instance owns on a
+ * volume shared with other instances are named after its id next to the lock, so the instance starting after a crash
+ * can tell the files of the instances still running from the ones left by the instances which are gone.
+ */
+public class InstanceLock implements AutoCloseable
+{
+   private static final String LAUNCHPAD_BACKEND_INSTANCE_ID = "LAUNCHPAD_BACKEND_INSTANCE_ID";
+
+   private static final String INSTANCE_ID = createInstanceId();
+
+   private final Path file;
+   private final FileChannel channel;
+   private final FileLock lock;
+
+   private InstanceLock(Path file, FileChannel channel, FileLock lock)
+   {
+      this.file = file;
+      this.channel = channel;
+      this.lock = lock;
+   }
+
+   /**
+    * @return the id of this instance: <code>LAUNCHPAD_BACKEND_INSTANCE_ID</code> if set, else the host name (the pod
+    *         name), else a random id
+    */
+   public static String getInstanceId()
+   {
+      return INSTANCE_ID;
+   }
+
+   /**
+    * Locks the given file, creating it if needed
+    *
+    * @return the lock, or null if the file is already locked by a running instance (this one included)
+    */
+   public static InstanceLock tryLock(Path file) throws IOException
+   {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      try
+      {
+         FileLock lock = channel.tryLock();
+         if (lock != null)
+         {
+            return new InstanceLock(file, channel, lock);
+         }
+      }
+      catch (OverlappingFileLockException e)
+      {
+         // Locked by this instance
+      }
+      channel.close();
+      return null;
+   }
+
+   /**
+    * Locks <code>&lt;prefix&gt;&lt;instance id&gt;.lock</code> in the given directory, falling back to a random id
+    * if another running instance has the same id
+    *
+    * @return the lock, whose id is given by {@link #getId(String)}
+    */
+   public static InstanceLock lockInstance(Path directory, String prefix) throws IOException
+   {
+      Files.createDirectories(directory);
+      InstanceLock lock = tryLock(directory.resolve(prefix + INSTANCE_ID + ".lock"));
+      while (lock == null)
+      {
+         lock = tryLock(directory.resolve(prefix + INSTANCE_ID + "-" + UUID.randomUUID() + ".lock"));
+      }
+      return lock;
+   }
+
+   /**
+    * @return the name of the locked file without the given prefix and the <code>.lock</code> extension
+    */
+   public String getId(String prefix)
+   {
+      String name = file.getFileName().toString();
+      return name.substring(prefix.length(), name.length() - ".lock".length());
+   }
+
+   /**
+    * Releases the lock and deletes the file
+    */
+   @Override
+   public void close() throws IOException
+   {
+      try
+      {
+         Files.deleteIfExists(file);
+         lock.release();
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   private static String createInstanceId()
+   {
+      String id = Environment.getEnv(LAUNCHPAD_BACKEND_INSTANCE_ID, System.getenv("HOSTNAME"));
+      return id != null && !id.isEmpty() ? id : UUID.randomUUID().toString();
+   }
+}
@@ -0,0 +1,53 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.OutputStream;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonBuilderFactory;
+import javax.json.JsonObjectBuilder;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+
+/**
+ * Shared JSON-P factories. The static methods in {@link Json} look up the JSON-P provider on every call, which is
+ * expensive on the hot paths.
+ */
+public class JsonFactory
+{
+   private static final JsonBuilderFactory BUILDER_FACTORY = Json.createBuilderFactory(null);
+   private static final JsonGeneratorFactory GENERATOR_FACTORY = Json.createGeneratorFactory(null);
+
+   public static JsonObjectBuilder createObjectBuilder()
+   {
+      return BUILDER_FACTORY.createObjectBuilder();
+   }
+
+   public static JsonArrayBuilder createArrayBuilder()
+   {
+      return BUILDER_FACTORY.createArrayBuilder();
+   }
+
+   /**
+    * @return a {@link JsonGenerator} writing UTF-8 to the given {@link OutputStream}
+    */
+   public static JsonGenerator createGenerator(OutputStream out)
+   {
+      return GENERATOR_FACTORY.createGenerator(out);
+   }
+}
@@ -16,16 +16,22 @@
 package io.openshift.launchpad.backend.util;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * {@link Path} related operations
@@ -45,13 +51,14 @@ public class Paths
     */
    public static byte[] zip(String root, final Path directory) throws IOException
    {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      zip(root, directory, baos);
-      return baos.toByteArray();
+      ByteArrayChannel channel = new ByteArrayChannel();
+      zip(root, directory, channel);
+      return channel.toByteArray();
    }
 
    /**
-    * Zips an entire directory and stores in the provided {@link OutputStream}
+    * Zips an entire directory and stores in the provided {@link OutputStream}, see
+    * {@link #zip(String, Path, WritableByteChannel)}
     * 
     * @param root the root directory to be used
     * @param directory the directory to be zipped
@@ -60,29 +67,89 @@ public class Paths
     */
    public static void zip(String root, final Path directory, OutputStream os) throws IOException
    {
-      try (final ZipOutputStream zos = new ZipOutputStream(os))
+      try (WritableByteChannel channel = Channels.newChannel(os))
       {
-         Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
+         zip(root, directory, channel);
+      }
+   }
+
+   /**
+    * Zips an entire directory and writes it to the provided {@link WritableByteChannel}, eg. a file or the response.
+    * The archive is reproducible: entries are sorted by name, use forward slashes, a fixed timestamp and normalized
+    * permissions, so the same directory contents always give the same bytes.
+    * 
+    * @param root the root directory to be used
+    * @param directory the directory to be zipped
+    * @param channel the {@link WritableByteChannel} which the zip operation will be written to, not closed
+    * @throws IOException if any I/O error happens
+    */
+   public static void zip(String root, final Path directory, WritableByteChannel channel) throws IOException
+   {
+      try (ZipChannelWriter writer = new ZipChannelWriter(channel))
+      {
+         zipDirectory(writer, root + "/", directory);
+      }
+   }
+
+   private static void zipDirectory(ZipChannelWriter writer, String entry, Path directory) throws IOException
+   {
+      writer.addDirectory(entry);
+      List<Path> children;
+      try (Stream<Path> list = Files.list(directory))
+      {
+         children = list.sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                  .collect(Collectors.toList());
+      }
+      for (Path child : children)
+      {
+         String name = entry + child.getFileName().toString();
+         if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS))
+         {
+            zipDirectory(writer, name + "/", child);
+         }
+         else
          {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
-            {
-               String entry = root + File.separator + directory.relativize(file).toString();
-               zos.putNextEntry(new ZipEntry(entry));
-               Files.copy(file, zos);
-               zos.closeEntry();
-               return FileVisitResult.CONTINUE;
-            }
+            writer.addFile(name, child);
+         }
+      }
+   }
+
+   /**
+    * Collects what is written in a byte array, copying the buffers straight into it (a channel over a
+    * {@link ByteArrayOutputStream} copies them through an intermediate array)
+    */
+   private static class ByteArrayChannel implements WritableByteChannel
+   {
+      private byte[] bytes = new byte[64 * 1024];
+      private int size;
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException
-            {
-               String entry = root + File.separator + directory.relativize(dir).toString() + File.separator;
-               zos.putNextEntry(new ZipEntry(entry));
-               zos.closeEntry();
-               return FileVisitResult.CONTINUE;
-            }
-         });
+      @Override
+      public int write(ByteBuffer src)
+      {
+         int length = src.remaining();
+         if (size + length > bytes.length)
+         {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+         }
+         src.get(bytes, size, length);
+         size += length;
+         return length;
+      }
+
+      @Override
+      public boolean isOpen()
+      {
+         return true;
+      }
+
+      @Override
+      public void close()
+      {
+      }
+
+      byte[] toByteArray()
+      {
+         return Arrays.copyOf(bytes, size);
       }
    }
 
@@ -90,16 +157,19 @@ public class Paths
     * Deletes a directory recursively
     * 
     * @param directory
+    * @return the size in bytes of the deleted files
     * @throws IOException
     */
-   public static void deleteDirectory(Path directory) throws IOException
+   public static long deleteDirectory(Path directory) throws IOException
    {
+      long[] deleted = new long[1];
       Files.walkFileTree(directory, new SimpleFileVisitor<Path>()
       {
          @Override
          public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException
          {
             Files.delete(file);
+            deleted[0] += attrs.size();
             return FileVisitResult.CONTINUE;
          }
 
@@ -110,5 +180,6 @@ public class Paths
             return FileVisitResult.CONTINUE;
          }
       });
+      return deleted[0];
    }
 }
@@ -0,0 +1,92 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * An {@link InputStream} that reports how many bytes were read so far
+ */
+public class ProgressInputStream extends FilterInputStream
+{
+   private final LongConsumer listener;
+   private final long step;
+   private long count;
+   private long reported;
+
+   /**
+    * @param in the {@link InputStream} to be read
+    * @param step the minimum number of bytes read between two notifications
+    * @param listener receives the total number of bytes read so far
+    */
+   public ProgressInputStream(InputStream in, long step, LongConsumer listener)
+   {
+      super(in);
+      this.step = step;
+      this.listener = listener;
+   }
+
+   @Override
+   public int read() throws IOException
+   {
+      int b = super.read();
+      progress(b == -1 ? -1 : 1);
+      return b;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException
+   {
+      int read = super.read(b, off, len);
+      progress(read);
+      return read;
+   }
+
+   @Override
+   public long skip(long n) throws IOException
+   {
+      long skipped = super.skip(n);
+      progress(skipped);
+      return skipped;
+   }
+
+   @Override
+   public boolean markSupported()
+   {
+      return false;
+   }
+
+   private void progress(long read)
+   {
+      if (read > 0)
+      {
+         count += read;
+         if (count - reported >= step)
+         {
+            reported = count;
+            listener.accept(count);
+         }
+      }
+      else if (read == -1 && reported != count)
+      {
+         reported = count;
+         listener.accept(count);
+      }
+   }
+}
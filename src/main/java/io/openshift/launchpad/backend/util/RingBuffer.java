@@ -0,0 +1,92 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer. Producers never wait: an element offered while
+ * the buffer is full is dropped.
+ *
+ * @param <E> the type of the elements
+ */
+public class RingBuffer<E>
+{
+   private final AtomicReferenceArray<E> slots;
+   private final int mask;
+   private final AtomicLong tail = new AtomicLong();
+   private final AtomicLong head = new AtomicLong();
+   private final AtomicLong dropped = new AtomicLong();
+
+   /**
+    * @param capacity the number of elements the buffer can hold, rounded up to a power of two
+    */
+   public RingBuffer(int capacity)
+   {
+      int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+      this.slots = new AtomicReferenceArray<>(size);
+      this.mask = size - 1;
+   }
+
+   /**
+    * Adds the given element, unless the buffer is full. Can be called from any thread.
+    *
+    * @return true if the element was added, false if it was dropped
+    */
+   public boolean offer(E element)
+   {
+      long sequence;
+      do
+      {
+         sequence = tail.get();
+         if (sequence - head.get() >= slots.length())
+         {
+            dropped.incrementAndGet();
+            return false;
+         }
+      }
+      while (!tail.compareAndSet(sequence, sequence + 1));
+      slots.lazySet((int) sequence & mask, element);
+      return true;
+   }
+
+   /**
+    * Removes the oldest element. Must only be called from the consumer thread.
+    *
+    * @return the oldest element, or null if the buffer is empty
+    */
+   public E poll()
+   {
+      long sequence = head.get();
+      int index = (int) sequence & mask;
+      E element = slots.get(index);
+      if (element != null)
+      {
+         slots.lazySet(index, null);
+         head.lazySet(sequence + 1);
+      }
+      return element;
+   }
+
+   /**
+    * @return the number of elements dropped because the buffer was full
+    */
+   public long getDropped()
+   {
+      return dropped.get();
+   }
+}
@@ -0,0 +1,96 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces concurrent calls with the same key: the first caller runs the call and the callers arriving while it is
+ * running wait for its result instead of running it again
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public class SingleFlight<K, V>
+{
+   private static final Logger log = Logger.getLogger(SingleFlight.class.getName());
+
+   private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+   /**
+    * Runs the given call, or waits for the result of the call already running with the same key. A caller that waits
+    * longer than the given timeout runs the call itself.
+    *
+    * @return the result of the call
+    * @throws Exception the exception thrown by the call
+    */
+   public V execute(K key, Callable<V> call, long timeout, TimeUnit unit) throws Exception
+   {
+      CompletableFuture<V> future = new CompletableFuture<>();
+      CompletableFuture<V> running = calls.putIfAbsent(key, future);
+      if (running == null)
+      {
+         try
+         {
+            V result = call.call();
+            future.complete(result);
+            return result;
+         }
+         catch (Throwable e)
+         {
+            future.completeExceptionally(e);
+            throw e;
+         }
+         finally
+         {
+            calls.remove(key, future);
+         }
+      }
+      try
+      {
+         return running.get(timeout, unit);
+      }
+      catch (TimeoutException e)
+      {
+         log.warning("Timed out waiting for a running call with the same key, running it again");
+         return call.call();
+      }
+      catch (ExecutionException e)
+      {
+         Throwable cause = e.getCause();
+         if (cause instanceof Exception)
+         {
+            throw (Exception) cause;
+         }
+         throw (Error) cause;
+      }
+   }
+
+   /**
+    * @return the number of calls running
+    */
+   public int size()
+   {
+      return calls.size();
+   }
+}
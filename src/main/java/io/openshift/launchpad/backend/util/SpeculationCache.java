@@ -0,0 +1,149 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the results of tasks started ahead of time, in case they are needed later. Results not taken before they
+ * expire, or evicted because the cache is full, are discarded and their tasks cancelled if still running.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the results
+ */
+public class SpeculationCache<K, V>
+{
+   private static final Logger log = Logger.getLogger(SpeculationCache.class.getName());
+
+   private final int maxEntries;
+   private final long ttlMillis;
+   /**
+    * In insertion order, so the first entry is the oldest one
+    */
+   private final Map<K, Speculation<V>> speculations = new LinkedHashMap<>();
+
+   /**
+    * @param maxEntries the maximum number of results kept, running or not
+    * @param ttl how long a result is kept
+    */
+   public SpeculationCache(int maxEntries, long ttl, TimeUnit unit)
+   {
+      this.maxEntries = maxEntries;
+      this.ttlMillis = unit.toMillis(ttl);
+   }
+
+   /**
+    * Starts the given task unless a task with the same key was already started and did not expire
+    */
+   public synchronized void start(K key, Callable<V> task, ExecutorService executor)
+   {
+      long now = System.currentTimeMillis();
+      purge(now);
+      if (speculations.containsKey(key))
+      {
+         return;
+      }
+      if (speculations.size() >= maxEntries)
+      {
+         Iterator<Speculation<V>> oldest = speculations.values().iterator();
+         oldest.next().discard();
+         oldest.remove();
+      }
+      speculations.put(key, new Speculation<>(executor.submit(task), now + ttlMillis));
+   }
+
+   /**
+    * Removes the result of the task started with the given key, waiting for it if still running
+    *
+    * @return the result, or null if no task was started with this key, it expired, failed or didn't finish in time
+    */
+   public V take(K key, long timeout, TimeUnit unit) throws InterruptedException
+   {
+      Speculation<V> speculation;
+      synchronized (this)
+      {
+         purge(System.currentTimeMillis());
+         speculation = speculations.remove(key);
+      }
+      if (speculation == null)
+      {
+         return null;
+      }
+      try
+      {
+         return speculation.future.get(timeout, unit);
+      }
+      catch (ExecutionException e)
+      {
+         log.log(Level.FINE, "Speculative task failed", e.getCause());
+         return null;
+      }
+      catch (TimeoutException e)
+      {
+         speculation.discard();
+         return null;
+      }
+   }
+
+   /**
+    * @return the number of results kept, running or not
+    */
+   public synchronized int size()
+   {
+      return speculations.size();
+   }
+
+   private void purge(long now)
+   {
+      Iterator<Speculation<V>> iterator = speculations.values().iterator();
+      while (iterator.hasNext())
+      {
+         Speculation<V> speculation = iterator.next();
+         if (speculation.expiresAt <= now)
+         {
+            speculation.discard();
+            iterator.remove();
+         }
+      }
+   }
+
+   private static class Speculation<V>
+   {
+      private final Future<V> future;
+      private final long expiresAt;
+
+      Speculation(Future<V> future, long expiresAt)
+      {
+         this.future = future;
+         this.expiresAt = expiresAt;
+      }
+
+      void discard()
+      {
+         future.cancel(true);
+      }
+   }
+}
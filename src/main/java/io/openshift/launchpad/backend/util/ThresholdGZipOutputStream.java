@@ -0,0 +1,185 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An {@link OutputStream} that buffers the written bytes up to a threshold. Content smaller than the threshold is
+ * written as is, larger content is gzipped. The underlying {@link OutputStream} is not closed.
+ */
+public class ThresholdGZipOutputStream extends OutputStream
+{
+   private final OutputStream out;
+   private final int threshold;
+   private final int level;
+   private final Runnable onCompression;
+   private ByteArrayOutputStream buffer;
+   private LevelGZIPOutputStream gzip;
+   private boolean finished;
+
+   /**
+    * @param out the {@link OutputStream} receiving the (compressed) content
+    * @param threshold the minimum size in bytes of the content to be compressed
+    * @param level the compression level, from 0 to 9
+    * @param onCompression called once, before the first compressed byte is written
+    */
+   public ThresholdGZipOutputStream(OutputStream out, int threshold, int level, Runnable onCompression)
+   {
+      this.out = out;
+      this.threshold = threshold;
+      this.level = level;
+      this.onCompression = onCompression;
+      this.buffer = new ByteArrayOutputStream(Math.min(threshold, 8192));
+   }
+
+   /**
+    * @return true if the content is being compressed
+    */
+   public boolean isCompressing()
+   {
+      return gzip != null;
+   }
+
+   @Override
+   public void write(int b) throws IOException
+   {
+      write(new byte[] { (byte) b }, 0, 1);
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException
+   {
+      if (gzip != null)
+      {
+         gzip.write(b, off, len);
+      }
+      else
+      {
+         buffer.write(b, off, len);
+         if (buffer.size() >= threshold)
+         {
+            startCompression();
+         }
+      }
+   }
+
+   /**
+    * Buffered content is not flushed, since it may still be compressed
+    */
+   @Override
+   public void flush() throws IOException
+   {
+      if (gzip != null)
+      {
+         gzip.flush();
+      }
+   }
+
+   /**
+    * Writes the remaining content without closing the underlying {@link OutputStream}
+    */
+   public void finish() throws IOException
+   {
+      if (finished)
+      {
+         return;
+      }
+      finished = true;
+      if (gzip != null)
+      {
+         gzip.finish();
+      }
+      else
+      {
+         buffer.writeTo(out);
+         buffer = null;
+      }
+      out.flush();
+   }
+
+   /**
+    * Writes the remaining content and releases the native memory of the compressor, without closing the underlying
+    * {@link OutputStream}
+    */
+   @Override
+   public void close() throws IOException
+   {
+      try
+      {
+         finish();
+      }
+      finally
+      {
+         if (gzip != null)
+         {
+            gzip.close();
+         }
+      }
+   }
+
+   private void startCompression() throws IOException
+   {
+      onCompression.run();
+      gzip = new LevelGZIPOutputStream(new FilterOutputStream(out)
+      {
+         @Override
+         public void write(byte[] b, int off, int len) throws IOException
+         {
+            out.write(b, off, len);
+         }
+
+         @Override
+         public void close() throws IOException
+         {
+            // Leaves the underlying stream open
+            flush();
+         }
+      }, level);
+      buffer.writeTo(gzip);
+      buffer = null;
+   }
+
+   /**
+    * A {@link GZIPOutputStream} with a compression level, which always releases its {@link java.util.zip.Deflater}
+    * when closed, even if the remaining content cannot be written
+    */
+   private static class LevelGZIPOutputStream extends GZIPOutputStream
+   {
+      LevelGZIPOutputStream(OutputStream out, int level) throws IOException
+      {
+         super(out, 8192);
+         def.setLevel(level);
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+         try
+         {
+            super.close();
+         }
+         finally
+         {
+            def.end();
+         }
+      }
+   }
+}
@@ -0,0 +1,92 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Virtual thread support. Virtual threads are only available on Java 21 or later, so they are looked up reflectively.
+ */
+public class VirtualThreads
+{
+   private static final Logger log = Logger.getLogger(VirtualThreads.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_VIRTUAL_THREADS = "LAUNCHPAD_BACKEND_VIRTUAL_THREADS";
+
+   private static final ExecutorService DEFAULT = newExecutorIfEnabled();
+
+   /**
+    * @return true if the running JVM supports virtual threads
+    */
+   public static boolean isSupported()
+   {
+      try
+      {
+         Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+         return true;
+      }
+      catch (NoSuchMethodException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * @return an {@link ExecutorService} starting a new virtual thread for each task
+    * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+    */
+   public static ExecutorService newExecutor()
+   {
+      try
+      {
+         return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new UnsupportedOperationException("Virtual threads are not supported by this JVM", e);
+      }
+   }
+
+   /**
+    * @return the {@link ExecutorService} running the requests and the background work on virtual threads, shared by
+    *         the whole application, or null if they are not enabled, see {@link #newExecutorIfEnabled()}
+    */
+   public static ExecutorService getDefault()
+   {
+      return DEFAULT;
+   }
+
+   /**
+    * @return an {@link ExecutorService} running on virtual threads if the <code>LAUNCHPAD_BACKEND_VIRTUAL_THREADS</code>
+    *         environment variable (or system property) is true and the running JVM supports them, null otherwise
+    */
+   public static ExecutorService newExecutorIfEnabled()
+   {
+      if (!Environment.getBoolean(LAUNCHPAD_BACKEND_VIRTUAL_THREADS, false))
+      {
+         return null;
+      }
+      if (!isSupported())
+      {
+         log.warning(LAUNCHPAD_BACKEND_VIRTUAL_THREADS + " is set, but virtual threads are not supported by this JVM");
+         return null;
+      }
+      log.info("Running requests on virtual threads");
+      return newExecutor();
+   }
+}
@@ -0,0 +1,137 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.logging.Logger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.JsonObject;
+import javax.json.JsonReader;
+
+/**
+ * Encodes the state of a wizard in a compact, signed token that clients send back in the next request. Any instance
+ * sharing the same secret can restore the state from the token.
+ */
+public class WizardStateToken
+{
+   private static final Logger log = Logger.getLogger(WizardStateToken.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_STATE_SECRET = "LAUNCHPAD_BACKEND_STATE_SECRET";
+   private static final String ALGORITHM = "HmacSHA256";
+
+   private final SecretKeySpec key;
+
+   public WizardStateToken(byte[] secret)
+   {
+      this.key = new SecretKeySpec(secret, ALGORITHM);
+   }
+
+   /**
+    * Creates a {@link WizardStateToken} signing with the <code>LAUNCHPAD_BACKEND_STATE_SECRET</code> environment
+    * variable (or system property). If none is set, a random secret is used and tokens are only valid in this instance.
+    */
+   public static WizardStateToken fromEnvironment()
+   {
+      String secret = Environment.getEnv(LAUNCHPAD_BACKEND_STATE_SECRET);
+      if (secret == null)
+      {
+         log.warning(LAUNCHPAD_BACKEND_STATE_SECRET + " is not set. Wizard state tokens are only valid in this instance");
+         byte[] random = new byte[32];
+         new SecureRandom().nextBytes(random);
+         return new WizardStateToken(random);
+      }
+      return new WizardStateToken(secret.getBytes(StandardCharsets.UTF_8));
+   }
+
+   /**
+    * @param state the state to be encoded
+    * @return a URL-safe token containing the given state
+    */
+   public String encode(JsonObject state)
+   {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      try (Writer writer = new OutputStreamWriter(new DeflaterOutputStream(baos), StandardCharsets.UTF_8))
+      {
+         writer.write(state.toString());
+      }
+      catch (IOException e)
+      {
+         throw new IllegalStateException("Error while encoding wizard state", e);
+      }
+      String payload = Base64.getUrlEncoder().withoutPadding().encodeToString(baos.toByteArray());
+      return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
+   }
+
+   /**
+    * @param token a token created by {@link #encode(JsonObject)}
+    * @return the state contained in the token
+    * @throws IllegalArgumentException if the token is malformed or its signature does not match
+    */
+   public JsonObject decode(String token)
+   {
+      int separator = token.indexOf('.');
+      if (separator == -1)
+      {
+         throw new IllegalArgumentException("Malformed wizard state token");
+      }
+      String payload = token.substring(0, separator);
+      byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+      if (!MessageDigest.isEqual(sign(payload), signature))
+      {
+         throw new IllegalArgumentException("Invalid wizard state token signature");
+      }
+      byte[] compressed = Base64.getUrlDecoder().decode(payload);
+      try (JsonReader reader = Json.createReader(new InputStreamReader(
+               new InflaterInputStream(new ByteArrayInputStream(compressed)), StandardCharsets.UTF_8)))
+      {
+         return reader.readObject();
+      }
+      catch (JsonException e)
+      {
+         throw new IllegalArgumentException("Malformed wizard state token", e);
+      }
+   }
+
+   private byte[] sign(String payload)
+   {
+      try
+      {
+         Mac mac = Mac.getInstance(ALGORITHM);
+         mac.init(key);
+         return mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+      }
+      catch (GeneralSecurityException e)
+      {
+         throw new IllegalStateException("Error while signing wizard state", e);
+      }
+   }
+}
@@ -0,0 +1,413 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip archive to a {@link WritableByteChannel}, reading the files through {@link FileChannel}s into pooled
+ * buffers. Files that are already compressed are stored, others are deflated with a pooled {@link Deflater}. The
+ * checksum of a stored file goes in its local header, before the contents: a file that fits in a buffer is read once,
+ * a larger one is read twice. Every entry has the same timestamp and normalized permissions (executable if the owner
+ * can execute the file), so the same entries always give the same bytes. ZIP64 is not supported: archives are limited
+ * to 65535 entries and 4 GB.
+ */
+public class ZipChannelWriter implements Closeable
+{
+   private static final int BUFFER_SIZE = 64 * 1024;
+   private static final BufferPool DIRECT_BUFFERS = new BufferPool(BUFFER_SIZE, 16, true);
+   private static final BufferPool HEAP_BUFFERS = new BufferPool(BUFFER_SIZE, 32, false);
+   private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(16);
+
+   private static final int LOCAL_HEADER = 0x04034b50;
+   private static final int DATA_DESCRIPTOR = 0x08074b50;
+   private static final int CENTRAL_HEADER = 0x02014b50;
+   private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+   private static final int VERSION = 20;
+   /**
+    * Unix, so the permissions are read from the external attributes
+    */
+   private static final int VERSION_MADE_BY = (3 << 8) | VERSION;
+   private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+   private static final int FLAG_UTF8 = 0x0800;
+   private static final int STORED = 0;
+   private static final int DEFLATED = 8;
+   /**
+    * 1980-02-01 00:00:00 in DOS format, a month after the DOS epoch so it stays valid in every time zone
+    */
+   private static final int DOS_TIME = 0;
+   private static final int DOS_DATE = (2 << 5) | 1;
+   private static final int FILE_MODE = 0100644;
+   private static final int EXECUTABLE_MODE = 0100755;
+   private static final int DIRECTORY_MODE = 040755;
+   private static final long MAX_SIZE = 0xFFFFFFFFL;
+   private static final int MAX_ENTRIES = 0xFFFF;
+   private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList(
+            "jar", "war", "ear", "zip", "gz", "tgz", "bz2", "xz", "png", "jpg", "jpeg", "gif", "ico", "woff", "woff2"));
+
+   private final WritableByteChannel out;
+   private final ByteBuffer header = HEAP_BUFFERS.acquire().order(ByteOrder.LITTLE_ENDIAN);
+   private final CRC32 crc = new CRC32();
+   private final List<Entry> entries = new ArrayList<>();
+   private long written;
+   private boolean closed;
+
+   /**
+    * @param out where the archive is written. Not closed by {@link #close()}
+    */
+   public ZipChannelWriter(WritableByteChannel out)
+   {
+      this.out = out;
+   }
+
+   /**
+    * Adds a directory entry
+    *
+    * @param name the name of the entry, ending with a slash
+    */
+   public void addDirectory(String name) throws IOException
+   {
+      Entry entry = new Entry(name, STORED, DIRECTORY_MODE, 0, written);
+      writeLocalHeader(entry);
+      entries.add(entry);
+   }
+
+   /**
+    * Adds a file entry with the contents of the given file
+    *
+    * @param name the name of the entry
+    */
+   public void addFile(String name, Path file) throws IOException
+   {
+      int mode = getMode(file);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+      {
+         Entry entry;
+         if (isCompressed(name) || channel.size() == 0)
+         {
+            entry = new Entry(name, STORED, mode, 0, written);
+            store(entry, channel);
+         }
+         else
+         {
+            entry = new Entry(name, DEFLATED, mode, FLAG_DATA_DESCRIPTOR, written);
+            deflate(entry, channel);
+         }
+         entries.add(entry);
+      }
+   }
+
+   /**
+    * Writes the central directory and gives back the pooled buffers
+    */
+   @Override
+   public void close() throws IOException
+   {
+      if (closed)
+      {
+         return;
+      }
+      closed = true;
+      try
+      {
+         if (entries.size() > MAX_ENTRIES)
+         {
+            throw new IOException("Too many entries for a zip archive: " + entries.size());
+         }
+         long centralDirectoryOffset = written;
+         for (Entry entry : entries)
+         {
+            writeCentralHeader(entry);
+         }
+         checkSize(written);
+         header.clear();
+         header.putInt(END_OF_CENTRAL_DIRECTORY)
+                  .putShort((short) 0)
+                  .putShort((short) 0)
+                  .putShort((short) entries.size())
+                  .putShort((short) entries.size())
+                  .putInt((int) (written - centralDirectoryOffset))
+                  .putInt((int) centralDirectoryOffset)
+                  .putShort((short) 0);
+         writeHeader();
+      }
+      finally
+      {
+         HEAP_BUFFERS.release(header.order(ByteOrder.BIG_ENDIAN));
+      }
+   }
+
+   private void store(Entry entry, FileChannel channel) throws IOException
+   {
+      long size = channel.size();
+      checkSize(size);
+      ByteBuffer buffer = DIRECT_BUFFERS.acquire();
+      try
+      {
+         crc.reset();
+         if (size <= buffer.capacity())
+         {
+            // The contents stay in the buffer while the checksum and the local header are written
+            buffer.limit((int) size);
+            int read = 0;
+            while (buffer.hasRemaining() && read >= 0)
+            {
+               read = channel.read(buffer);
+            }
+            buffer.flip();
+            crc.update(buffer);
+            buffer.rewind();
+            writeStoredHeader(entry, buffer.remaining());
+            writeFully(buffer);
+         }
+         else
+         {
+            // The checksum goes in the local header, before the contents, so the file is read twice
+            while (channel.read(buffer) >= 0)
+            {
+               buffer.flip();
+               crc.update(buffer);
+               buffer.clear();
+            }
+            writeStoredHeader(entry, size);
+            channel.position(0);
+            while (channel.read(buffer) >= 0)
+            {
+               buffer.flip();
+               writeFully(buffer);
+               buffer.clear();
+            }
+         }
+      }
+      finally
+      {
+         DIRECT_BUFFERS.release(buffer);
+      }
+   }
+
+   private void writeStoredHeader(Entry entry, long size) throws IOException
+   {
+      entry.crc = crc.getValue();
+      entry.compressedSize = size;
+      entry.size = size;
+      writeLocalHeader(entry);
+   }
+
+   private void deflate(Entry entry, FileChannel channel) throws IOException
+   {
+      writeLocalHeader(entry);
+      long start = written;
+      ByteBuffer input = HEAP_BUFFERS.acquire();
+      ByteBuffer output = HEAP_BUFFERS.acquire();
+      Deflater deflater = DEFLATERS.poll();
+      if (deflater == null)
+      {
+         deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+      }
+      try
+      {
+         // Deflater only takes arrays before Java 11, so the contents are read into heap buffers
+         crc.reset();
+         long size = 0;
+         int read;
+         while ((read = channel.read(input)) >= 0)
+         {
+            crc.update(input.array(), input.arrayOffset(), read);
+            size += read;
+            deflater.setInput(input.array(), input.arrayOffset(), read);
+            while (!deflater.needsInput())
+            {
+               writeDeflated(deflater, output);
+            }
+            input.clear();
+         }
+         deflater.finish();
+         while (!deflater.finished())
+         {
+            writeDeflated(deflater, output);
+         }
+         entry.crc = crc.getValue();
+         entry.size = size;
+         entry.compressedSize = written - start;
+      }
+      finally
+      {
+         deflater.reset();
+         if (!DEFLATERS.offer(deflater))
+         {
+            deflater.end();
+         }
+         HEAP_BUFFERS.release(input);
+         HEAP_BUFFERS.release(output);
+      }
+      checkSize(entry.size);
+      checkSize(entry.compressedSize);
+      header.clear();
+      header.putInt(DATA_DESCRIPTOR)
+               .putInt((int) entry.crc)
+               .putInt((int) entry.compressedSize)
+               .putInt((int) entry.size);
+      writeHeader();
+   }
+
+   private void writeDeflated(Deflater deflater, ByteBuffer output) throws IOException
+   {
+      int length = deflater.deflate(output.array(), output.arrayOffset(), output.capacity());
+      if (length > 0)
+      {
+         output.clear().limit(length);
+         writeFully(output);
+         output.clear();
+      }
+   }
+
+   private void writeLocalHeader(Entry entry) throws IOException
+   {
+      checkSize(entry.offset);
+      header.clear();
+      header.putInt(LOCAL_HEADER)
+               .putShort((short) VERSION)
+               .putShort((short) (FLAG_UTF8 | entry.flags))
+               .putShort((short) entry.method)
+               .putShort((short) DOS_TIME)
+               .putShort((short) DOS_DATE)
+               .putInt((int) entry.crc)
+               .putInt((int) entry.compressedSize)
+               .putInt((int) entry.size)
+               .putShort((short) entry.name.length)
+               .putShort((short) 0)
+               .put(entry.name);
+      writeHeader();
+   }
+
+   private void writeCentralHeader(Entry entry) throws IOException
+   {
+      header.clear();
+      header.putInt(CENTRAL_HEADER)
+               .putShort((short) VERSION_MADE_BY)
+               .putShort((short) VERSION)
+               .putShort((short) (FLAG_UTF8 | entry.flags))
+               .putShort((short) entry.method)
+               .putShort((short) DOS_TIME)
+               .putShort((short) DOS_DATE)
+               .putInt((int) entry.crc)
+               .putInt((int) entry.compressedSize)
+               .putInt((int) entry.size)
+               .putShort((short) entry.name.length)
+               .putShort((short) 0)
+               .putShort((short) 0)
+               .putShort((short) 0)
+               .putShort((short) 0)
+               .putInt(entry.mode << 16)
+               .putInt((int) entry.offset)
+               .put(entry.name);
+      writeHeader();
+   }
+
+   private void writeHeader() throws IOException
+   {
+      header.flip();
+      writeFully(header);
+   }
+
+   private void writeFully(ByteBuffer buffer) throws IOException
+   {
+      while (buffer.hasRemaining())
+      {
+         written += out.write(buffer);
+      }
+   }
+
+   private static void checkSize(long size) throws IOException
+   {
+      if (size > MAX_SIZE)
+      {
+         throw new IOException("Too large for a zip archive without ZIP64: " + size);
+      }
+   }
+
+   /**
+    * @return the mode of the entry of the given file, executable if the owner can execute it whatever the user running
+    *         the backend
+    */
+   private static int getMode(Path file) throws IOException
+   {
+      try
+      {
+         return Files.getPosixFilePermissions(file).contains(PosixFilePermission.OWNER_EXECUTE) ? EXECUTABLE_MODE
+                  : FILE_MODE;
+      }
+      catch (UnsupportedOperationException e)
+      {
+         // Not a POSIX file system
+         return FILE_MODE;
+      }
+   }
+
+   private static boolean isCompressed(String name)
+   {
+      int dot = name.lastIndexOf('.');
+      return dot >= 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+   }
+
+   /**
+    * An entry written, kept for the central directory
+    */
+   private static class Entry
+   {
+      private final byte[] name;
+      private final int method;
+      private final int mode;
+      private final int flags;
+      private final long offset;
+      private long crc;
+      private long compressedSize;
+      private long size;
+
+      Entry(String name, int method, int mode, int flags, long offset) throws IOException
+      {
+         this.name = name.getBytes(StandardCharsets.UTF_8);
+         if (this.name.length > BUFFER_SIZE - 64)
+         {
+            throw new IOException("Entry name too long: " + name);
+         }
+         this.method = method;
+         this.mode = mode;
+         this.flags = flags;
+         this.offset = offset;
+      }
+   }
+}
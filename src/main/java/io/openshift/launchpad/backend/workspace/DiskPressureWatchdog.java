@@ -0,0 +1,194 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.workspace;
+
+import static io.openshift.launchpad.backend.util.Environment.getMegabytes;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Tells whether the workspaces are running out of disk space, from their free space and from the size of the
+ * directories waiting to be deleted, so new generations can be slowed down or rejected before the volume is full
+ */
+public class DiskPressureWatchdog
+{
+   private static final Logger log = Logger.getLogger(DiskPressureWatchdog.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_DISK_LOW_MB = "LAUNCHPAD_BACKEND_DISK_LOW_MB";
+   private static final String LAUNCHPAD_BACKEND_DISK_CRITICAL_MB = "LAUNCHPAD_BACKEND_DISK_CRITICAL_MB";
+   private static final String LAUNCHPAD_BACKEND_DISK_MAX_CLEANUP_MB = "LAUNCHPAD_BACKEND_DISK_MAX_CLEANUP_MB";
+   /**
+    * The weight of the last deleted directory in the average directory size
+    */
+   private static final double SIZE_SMOOTHING = 0.2;
+
+   private static DiskPressureWatchdog defaultWatchdog;
+
+   /**
+    * The disk pressure levels
+    */
+   public enum Pressure
+   {
+      /**
+       * Generations proceed as usual
+       */
+      NORMAL,
+      /**
+       * Generations help deleting the directories waiting for cleanup first
+       */
+      HIGH,
+      /**
+       * New generations are rejected
+       */
+      CRITICAL
+   }
+
+   private final WorkspaceManager workspaces;
+   private final long lowBytes;
+   private final long criticalBytes;
+   private final long maxCleanupBytes;
+   private final AtomicInteger pendingCleanups = new AtomicInteger();
+   private final AtomicReference<Pressure> lastPressure = new AtomicReference<>(Pressure.NORMAL);
+   private volatile double averageDirectoryBytes;
+
+   /**
+    * @param workspaces the workspaces watched
+    * @param lowBytes below this free space, the pressure is high
+    * @param criticalBytes below this free space, the pressure is critical
+    * @param maxCleanupBytes above this size of directories waiting for cleanup, the pressure is high
+    */
+   public DiskPressureWatchdog(WorkspaceManager workspaces, long lowBytes, long criticalBytes, long maxCleanupBytes)
+   {
+      this.workspaces = workspaces;
+      this.lowBytes = lowBytes;
+      this.criticalBytes = criticalBytes;
+      this.maxCleanupBytes = maxCleanupBytes;
+   }
+
+   /**
+    * Creates a {@link DiskPressureWatchdog} from the following environment variables (or system properties):
+    * <ul>
+    * <li>LAUNCHPAD_BACKEND_DISK_LOW_MB: the free space below which generations are slowed down. Defaults to 1024</li>
+    * <li>LAUNCHPAD_BACKEND_DISK_CRITICAL_MB: the free space below which generations are rejected. Defaults to
+    * 128</li>
+    * <li>LAUNCHPAD_BACKEND_DISK_MAX_CLEANUP_MB: the size of the directories waiting for cleanup above which
+    * generations are slowed down. Defaults to 512</li>
+    * </ul>
+    */
+   public static DiskPressureWatchdog fromEnvironment(WorkspaceManager workspaces)
+   {
+      return new DiskPressureWatchdog(workspaces, getMegabytes(LAUNCHPAD_BACKEND_DISK_LOW_MB, 1024),
+               getMegabytes(LAUNCHPAD_BACKEND_DISK_CRITICAL_MB, 128),
+               getMegabytes(LAUNCHPAD_BACKEND_DISK_MAX_CLEANUP_MB, 512));
+   }
+
+   /**
+    * @return the watchdog of the default {@link WorkspaceManager}, configured by the environment variables (or system
+    *         properties)
+    */
+   public static synchronized DiskPressureWatchdog getDefault()
+   {
+      if (defaultWatchdog == null)
+      {
+         defaultWatchdog = fromEnvironment(WorkspaceManager.getDefault());
+      }
+      return defaultWatchdog;
+   }
+
+   /**
+    * A directory is waiting for cleanup
+    */
+   public void cleanupScheduled()
+   {
+      pendingCleanups.incrementAndGet();
+   }
+
+   /**
+    * A directory waiting for cleanup was deleted
+    *
+    * @param bytes the size of the deleted directory, 0 if it was already gone (not counted in the average size)
+    */
+   public void cleanupFinished(long bytes)
+   {
+      pendingCleanups.decrementAndGet();
+      if (bytes <= 0)
+      {
+         return;
+      }
+      double average = averageDirectoryBytes;
+      averageDirectoryBytes = average == 0 ? bytes : average + SIZE_SMOOTHING * (bytes - average);
+   }
+
+   /**
+    * @return the number of directories waiting for cleanup
+    */
+   public int getPendingCleanups()
+   {
+      return Math.max(0, pendingCleanups.get());
+   }
+
+   /**
+    * @return the estimated size of the directories waiting for cleanup, from the average size of the deleted ones
+    */
+   public long getOutstandingCleanupBytes()
+   {
+      return (long) (getPendingCleanups() * averageDirectoryBytes);
+   }
+
+   /**
+    * @return the free space of the workspace with the most free space, where the next directory goes when space runs
+    *         out
+    */
+   public long getUsableSpace()
+   {
+      long usable = 0;
+      for (WorkspaceManager.Workspace workspace : workspaces.getWorkspaces())
+      {
+         usable = Math.max(usable, workspace.getUsableSpace());
+      }
+      return usable;
+   }
+
+   /**
+    * @return the current disk pressure
+    */
+   public Pressure getPressure()
+   {
+      long usable = getUsableSpace();
+      Pressure pressure;
+      if (usable < criticalBytes)
+      {
+         pressure = Pressure.CRITICAL;
+      }
+      else if (usable < lowBytes || getOutstandingCleanupBytes() > maxCleanupBytes)
+      {
+         pressure = Pressure.HIGH;
+      }
+      else
+      {
+         pressure = Pressure.NORMAL;
+      }
+      Pressure previous = lastPressure.getAndSet(pressure);
+      if (previous != pressure)
+      {
+         log.warning("Disk pressure is now " + pressure + ": " + usable / (1024 * 1024) + " MB free, "
+                  + getPendingCleanups() + " directories waiting for cleanup");
+      }
+      return pressure;
+   }
+}
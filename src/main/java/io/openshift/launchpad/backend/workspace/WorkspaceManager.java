@@ -0,0 +1,371 @@
+/**
+ *  Copyright 2005-2015 Red Hat, Inc.
+ *
+ *  Red Hat licenses this file to you under the Apache License, version
+ *  2.0 (the "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ *  implied.  See the License for the specific language governing
+ *  permissions and limitations under the License.
+ */
+package io.openshift.launchpad.backend.workspace;
+
+import static io.openshift.launchpad.backend.util.Environment.getEnv;
+import static io.openshift.launchpad.backend.util.Environment.getMegabytes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+import java.util.logging.Logger;
+
+import io.openshift.launchpad.backend.util.InstanceLock;
+
+/**
+ * Spreads the directories where projects are generated across several workspaces (usually one per mounted volume),
+ * keeping track of the free space and of the directories in use in each of them. In each workspace, the directories
+ * are created in a subdirectory named after this instance and locked by it (see {@link InstanceLock}), so instances
+ * sharing a volume never delete the directories of each other.
+ */
+public class WorkspaceManager
+{
+   private static final Logger log = Logger.getLogger(WorkspaceManager.class.getName());
+
+   private static final String LAUNCHPAD_BACKEND_WORKSPACES = "LAUNCHPAD_BACKEND_WORKSPACES";
+   private static final String LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT = "LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT";
+   private static final String LAUNCHPAD_BACKEND_WORKSPACE_MIN_FREE_MB = "LAUNCHPAD_BACKEND_WORKSPACE_MIN_FREE_MB";
+   private static final long DEFAULT_MIN_FREE_MB = 256;
+   private static final long FREE_SPACE_REFRESH_MILLIS = 1000;
+   private static final String INSTANCE_PREFIX = "launchpad-";
+
+   /**
+    * How a workspace is chosen for a new directory
+    */
+   public enum Placement
+   {
+      /**
+       * Each available workspace in turn
+       */
+      ROUND_ROBIN,
+      /**
+       * The available workspace with the fewest directories in use, then with the most free space
+       */
+      LEAST_USED
+   }
+
+   private static WorkspaceManager defaultManager;
+
+   private final List<Workspace> workspaces;
+   private final Placement placement;
+   private final long minFreeBytes;
+   private final ToLongFunction<Path> usableSpace;
+   private final Map<Path, Workspace> directories = new ConcurrentHashMap<>();
+   /**
+    * The locks of the instance directories left by instances which are gone, held until they are deleted
+    */
+   private final Map<Path, InstanceLock> orphans = new ConcurrentHashMap<>();
+   private final AtomicInteger next = new AtomicInteger();
+
+   public WorkspaceManager(List<Path> roots, Placement placement, long minFreeBytes)
+   {
+      this(roots, placement, minFreeBytes, WorkspaceManager::getUsableSpace);
+   }
+
+   WorkspaceManager(List<Path> roots, Placement placement, long minFreeBytes, ToLongFunction<Path> usableSpace)
+   {
+      if (roots.isEmpty())
+      {
+         throw new IllegalArgumentException("At least one workspace is required");
+      }
+      List<Workspace> list = new ArrayList<>();
+      for (Path root : roots)
+      {
+         list.add(new Workspace(root));
+      }
+      this.workspaces = Collections.unmodifiableList(list);
+      this.placement = placement;
+      this.minFreeBytes = minFreeBytes;
+      this.usableSpace = usableSpace;
+   }
+
+   /**
+    * @return the workspace manager configured by the environment variables (or system properties), see
+    *         {@link #fromEnvironment()}
+    */
+   public static synchronized WorkspaceManager getDefault()
+   {
+      if (defaultManager == null)
+      {
+         defaultManager = fromEnvironment();
+      }
+      return defaultManager;
+   }
+
+   /**
+    * Creates a {@link WorkspaceManager} from the following environment variables (or system properties):
+    * <ul>
+    * <li>LAUNCHPAD_BACKEND_WORKSPACES: the workspace directories, separated by commas. Defaults to the temp
+    * directory</li>
+    * <li>LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT: <code>round-robin</code> (default) or <code>least-used</code></li>
+    * <li>LAUNCHPAD_BACKEND_WORKSPACE_MIN_FREE_MB: a workspace with less free space is taken out of rotation.
+    * Defaults to 256</li>
+    * </ul>
+    *
+    * @throws IllegalArgumentException if one of them is invalid
+    */
+   public static WorkspaceManager fromEnvironment()
+   {
+      List<Path> roots = new ArrayList<>();
+      String value = getEnv(LAUNCHPAD_BACKEND_WORKSPACES, System.getProperty("java.io.tmpdir"));
+      for (String root : value.split(","))
+      {
+         if (!root.trim().isEmpty())
+         {
+            roots.add(Paths.get(root.trim()));
+         }
+      }
+      String placementName = getEnv(LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT, "round-robin");
+      Placement placement;
+      try
+      {
+         placement = Placement.valueOf(placementName.trim().toUpperCase().replace('-', '_'));
+      }
+      catch (IllegalArgumentException e)
+      {
+         throw new IllegalArgumentException(LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT
+                  + " must be round-robin or least-used, but is '" + placementName + "'", e);
+      }
+      return new WorkspaceManager(roots, placement,
+               getMegabytes(LAUNCHPAD_BACKEND_WORKSPACE_MIN_FREE_MB, DEFAULT_MIN_FREE_MB));
+   }
+
+   /**
+    * Creates a new directory in one of the workspaces. If every workspace is nearly full, the one with the most free
+    * space is used.
+    *
+    * @param prefix the prefix of the directory name
+    * @return the created directory, to be passed to {@link #release(Path)} once deleted
+    */
+   public Path createDirectory(String prefix) throws IOException
+   {
+      Workspace workspace = choose();
+      Path directory = Files.createTempDirectory(workspace.getInstanceDirectory(), prefix);
+      workspace.inFlight.incrementAndGet();
+      directories.put(directory, workspace);
+      return directory;
+   }
+
+   /**
+    * Stops counting the given directory as in use. Directories not created by this manager are ignored. The lock of a
+    * directory returned by {@link #findLeftoverDirectories(String)} is released.
+    */
+   public void release(Path directory)
+   {
+      Workspace workspace = directories.remove(directory);
+      if (workspace != null)
+      {
+         workspace.inFlight.decrementAndGet();
+      }
+      InstanceLock lock = orphans.remove(directory);
+      if (lock != null)
+      {
+         try
+         {
+            lock.close();
+         }
+         catch (IOException e)
+         {
+            log.warning("Cannot release the lock of " + directory + ": " + e);
+         }
+      }
+   }
+
+   /**
+    * Finds the directories left in the workspaces by the previous process of this instance and by the instances which
+    * are gone, so they can be deleted on startup. The directories of the running instances and the ones created by
+    * this manager and not released yet are not returned. The directories of the instances which are gone stay locked
+    * until they are passed to {@link #release(Path)}.
+    *
+    * @param prefix the prefix given to {@link #createDirectory(String)}
+    * @return the directories found
+    */
+   public List<Path> findLeftoverDirectories(String prefix) throws IOException
+   {
+      List<Path> leftovers = new ArrayList<>();
+      for (Workspace workspace : workspaces)
+      {
+         if (!Files.isDirectory(workspace.root))
+         {
+            continue;
+         }
+         Path instanceDirectory = workspace.getInstanceDirectory();
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(instanceDirectory, prefix + "*"))
+         {
+            for (Path directory : stream)
+            {
+               if (Files.isDirectory(directory) && !directories.containsKey(directory))
+               {
+                  leftovers.add(directory);
+               }
+            }
+         }
+         try (DirectoryStream<Path> stream = Files.newDirectoryStream(workspace.root, INSTANCE_PREFIX + "*"))
+         {
+            for (Path directory : stream)
+            {
+               if (!Files.isDirectory(directory) || directory.equals(instanceDirectory)
+                        || orphans.containsKey(directory))
+               {
+                  continue;
+               }
+               // An instance creates its directory once it holds the lock, so a lock we can take is not in use
+               InstanceLock lock = InstanceLock.tryLock(directory.resolveSibling(directory.getFileName() + ".lock"));
+               if (lock != null)
+               {
+                  orphans.put(directory, lock);
+                  leftovers.add(directory);
+               }
+            }
+         }
+      }
+      return leftovers;
+   }
+
+   /**
+    * @return the workspaces, in the configured order
+    */
+   public List<Workspace> getWorkspaces()
+   {
+      return workspaces;
+   }
+
+   private Workspace choose()
+   {
+      List<Workspace> available = new ArrayList<>(workspaces.size());
+      for (Workspace workspace : workspaces)
+      {
+         if (workspace.isAvailable())
+         {
+            available.add(workspace);
+         }
+      }
+      if (available.isEmpty())
+      {
+         Workspace fallback = Collections.max(workspaces, Comparator.comparingLong(Workspace::getUsableSpace));
+         log.warning("All workspaces are nearly full, using " + fallback.root);
+         return fallback;
+      }
+      if (placement == Placement.LEAST_USED)
+      {
+         return Collections.min(available, Comparator.comparingInt(Workspace::getInFlight)
+                  .thenComparing(Comparator.comparingLong(Workspace::getUsableSpace).reversed()));
+      }
+      return available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+   }
+
+   private static long getUsableSpace(Path root)
+   {
+      try
+      {
+         Path existing = root;
+         while (existing != null && !Files.exists(existing))
+         {
+            existing = existing.getParent();
+         }
+         return Files.getFileStore(existing != null ? existing : root).getUsableSpace();
+      }
+      catch (IOException e)
+      {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   /**
+    * A directory where projects are generated
+    */
+   public class Workspace
+   {
+      private final Path root;
+      private final AtomicInteger inFlight = new AtomicInteger();
+      private volatile long usableSpace;
+      private volatile long checkedAt;
+      private InstanceLock lock;
+      private Path instanceDirectory;
+
+      Workspace(Path root)
+      {
+         this.root = root;
+      }
+
+      public Path getRoot()
+      {
+         return root;
+      }
+
+      /**
+       * @return the directory of this instance in this workspace, created and locked on first use
+       */
+      public synchronized Path getInstanceDirectory() throws IOException
+      {
+         if (instanceDirectory == null)
+         {
+            lock = InstanceLock.lockInstance(root, INSTANCE_PREFIX);
+            instanceDirectory = Files.createDirectories(root.resolve(INSTANCE_PREFIX + lock.getId(INSTANCE_PREFIX)));
+         }
+         return instanceDirectory;
+      }
+
+      /**
+       * @return the number of directories created in this workspace and not released yet
+       */
+      public int getInFlight()
+      {
+         return inFlight.get();
+      }
+
+      /**
+       * @return the usable space in bytes, refreshed at most once per second. 0 if it can't be determined
+       */
+      public long getUsableSpace()
+      {
+         long now = System.currentTimeMillis();
+         if (now - checkedAt > FREE_SPACE_REFRESH_MILLIS)
+         {
+            try
+            {
+               usableSpace = WorkspaceManager.this.usableSpace.applyAsLong(root);
+            }
+            catch (UncheckedIOException e)
+            {
+               log.warning("Cannot determine the free space of " + root + ": " + e.getCause());
+               usableSpace = 0;
+            }
+            checkedAt = now;
+         }
+         return usableSpace;
+      }
+
+      /**
+       * @return true if this workspace has enough free space to receive new directories
+       */
+      public boolean isAvailable()
+      {
+         return getUsableSpace() >= minFreeBytes;
+      }
+   }
+}
@@ -0,0 +1,174 @@
+package io.openshift.launchpad.backend.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openshift.launchpad.backend.util.JsonBuilder;
+
+/**
+ * Measures the describe and validate requests of a running backend, through the whole Undertow, RESTEasy and Forge
+ * dispatch. Start the backend once with the worker pool and once with <code>LAUNCHPAD_BACKEND_VIRTUAL_THREADS=true</code>
+ * on Java 21 or later (the setting is ignored on older JVMs, so both runs then measure the worker pool), and compare
+ * the results of:
+ *
+ * <pre>
+ * mvn verify -Pbenchmark -Djmh.benchmarks=BlockingDispatchBenchmark -Djmh.args="-p url=http://localhost:8080 -p pid=1234"
+ * </pre>
+ *
+ * When the pid of a backend running on the same Linux machine is given, its peak resident memory and thread count
+ * during each iteration are sampled from <code>/proc</code> and printed after the iteration, so the memory of both
+ * models can be compared too.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Threads(64)
+@Fork(1)
+public class BlockingDispatchBenchmark {
+
+    @Param({"http://localhost:8080"})
+    private String url;
+
+    @Param({"launchpad-new-project"})
+    private String command;
+
+    @Param({""})
+    private String pid;
+
+    private ServerSampler sampler;
+
+    private URL describe;
+
+    private URL validate;
+
+    private byte[] validateContent;
+
+    @Setup
+    public void setup() throws IOException {
+        describe = new URL(url + "/launchpad/commands/" + command);
+        validate = new URL(url + "/launchpad/commands/" + command + "/validate");
+        validateContent = new JsonBuilder().createJson(1)
+                .addInput("deploymentType", "Continuous delivery")
+                .build().toString().getBytes(StandardCharsets.UTF_8);
+        // Fail fast if the backend is not running
+        describe();
+    }
+
+    @Setup(Level.Iteration)
+    public void startSampling() {
+        if (!pid.isEmpty()) {
+            sampler = new ServerSampler(Paths.get("/proc", pid, "status"));
+            sampler.start();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopSampling() throws InterruptedException {
+        if (sampler != null) {
+            sampler.interrupt();
+            sampler.join();
+            System.out.println("Backend peak RSS: " + sampler.peakRssKb / 1024 + " MB, peak threads: "
+                    + sampler.peakThreads);
+            sampler = null;
+        }
+    }
+
+    @Benchmark
+    public long describe() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) describe.openConnection();
+        return readResponse(connection);
+    }
+
+    @Benchmark
+    public long validate() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) validate.openConnection();
+        connection.setRequestMethod("POST");
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(validateContent);
+        }
+        return readResponse(connection);
+    }
+
+    private static long readResponse(HttpURLConnection connection) throws IOException {
+        if (connection.getResponseCode() != 200) {
+            throw new IllegalStateException(connection.getURL() + " returned " + connection.getResponseCode());
+        }
+        long size = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = connection.getInputStream()) {
+            for (int read; (read = in.read(buffer)) != -1; ) {
+                size += read;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Samples the resident memory and the thread count of a process every 100 ms, keeping the peaks
+     */
+    private static class ServerSampler extends Thread {
+
+        private final Path status;
+
+        private volatile long peakRssKb;
+
+        private volatile long peakThreads;
+
+        ServerSampler(Path status) {
+            super("backend-sampler");
+            this.status = status;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!isInterrupted()) {
+                    for (String line : Files.readAllLines(status, StandardCharsets.UTF_8)) {
+                        if (line.startsWith("VmRSS:")) {
+                            peakRssKb = Math.max(peakRssKb, parse(line));
+                        } else if (line.startsWith("Threads:")) {
+                            peakThreads = Math.max(peakThreads, parse(line));
+                        }
+                    }
+                    Thread.sleep(100);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot sample the backend from " + status, e);
+            } catch (InterruptedException e) {
+                // Iteration finished
+            }
+        }
+
+        private static long parse(String line) {
+            return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+    }
+}
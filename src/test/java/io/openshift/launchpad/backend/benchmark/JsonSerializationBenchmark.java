@@ -0,0 +1,100 @@
+package io.openshift.launchpad.backend.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObject;
+import javax.json.JsonWriter;
+import javax.ws.rs.core.MediaType;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openshift.launchpad.backend.rest.JsonStructureWriter;
+import io.openshift.launchpad.backend.util.JsonFactory;
+
+/**
+ * Measures the two costs {@link JsonFactory} and {@link JsonStructureWriter} act on, for a wizard response of 5
+ * inputs. The describe and validate responses are still built as a {@link JsonObject} tree by forge-service's
+ * UICommandHelper and then serialized, so the tree is built in every case:
+ * <ul>
+ * <li>building the tree with the static {@link Json} methods (a JSON-P provider lookup per builder) against the shared
+ * factories of {@link JsonFactory}</li>
+ * <li>serializing the same prebuilt tree with a {@link JsonWriter} created through {@link Json} (as the default JAX-RS
+ * provider does) against {@link JsonStructureWriter}</li>
+ * </ul>
+ * Run with <code>-prof gc</code> to compare the allocated memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "200"})
+    private int valueChoices;
+
+    private final JsonStructureWriter writer = new JsonStructureWriter();
+    private JsonObject response;
+
+    @Setup
+    public void buildResponse() {
+        response = buildWithSharedFactory();
+    }
+
+    @Benchmark
+    public JsonObject buildWithProviderLookups() {
+        JsonArrayBuilder inputs = Json.createArrayBuilder();
+        for (int i = 0; i < 5; i++) {
+            JsonArrayBuilder choices = Json.createArrayBuilder();
+            for (int j = 0; j < valueChoices; j++) {
+                choices.add(Json.createObjectBuilder().add("id", "choice-" + j).add("description", "Choice " + j));
+            }
+            inputs.add(Json.createObjectBuilder().add("name", "input-" + i).add("valueChoices", choices));
+        }
+        return Json.createObjectBuilder().add("inputs", inputs).build();
+    }
+
+    @Benchmark
+    public JsonObject buildWithSharedFactory() {
+        JsonArrayBuilder inputs = JsonFactory.createArrayBuilder();
+        for (int i = 0; i < 5; i++) {
+            JsonArrayBuilder choices = JsonFactory.createArrayBuilder();
+            for (int j = 0; j < valueChoices; j++) {
+                choices.add(JsonFactory.createObjectBuilder().add("id", "choice-" + j).add("description", "Choice " + j));
+            }
+            inputs.add(JsonFactory.createObjectBuilder().add("name", "input-" + i).add("valueChoices", choices));
+        }
+        return JsonFactory.createObjectBuilder().add("inputs", inputs).build();
+    }
+
+    @Benchmark
+    public int writeWithJsonWriter() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonWriter jsonWriter = Json.createWriter(out)) {
+            jsonWriter.writeObject(response);
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public int writeWithJsonStructureWriter() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(response, JsonObject.class, JsonObject.class, null, MediaType.APPLICATION_JSON_TYPE, null, out);
+        return out.size();
+    }
+}
@@ -0,0 +1,102 @@
+package io.openshift.launchpad.backend.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.openshift.launchpad.backend.util.Paths;
+import io.openshift.launchpad.backend.util.ZipChannelWriter;
+
+/**
+ * Compares zipping a generated project into a byte array, as LaunchResource does, with a {@link ZipOutputStream} and
+ * {@link Files#copy(Path, OutputStream)} per file (the previous implementation) against
+ * {@link Paths#zip(String, Path)} and its {@link ZipChannelWriter}. Run with <code>-prof gc</code> to compare the
+ * allocated memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ZipBenchmark {
+
+    private Path project;
+
+    @Setup
+    public void createProject() throws IOException {
+        // Roughly the shape of a booster: a few hundred small sources and the Maven wrapper jar
+        project = Files.createTempDirectory("benchmark");
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            Path source = project.resolve("src/main/java/io/openshift/booster/package" + (i % 20))
+                    .resolve("Class" + i + ".java");
+            Files.createDirectories(source.getParent());
+            StringBuilder contents = new StringBuilder();
+            int lines = 20 + random.nextInt(200);
+            for (int line = 0; line < lines; line++) {
+                contents.append("    private String field").append(line).append(" = \"value\";\n");
+            }
+            Files.write(source, contents.toString().getBytes());
+        }
+        byte[] jar = new byte[50 * 1024];
+        random.nextBytes(jar);
+        Files.createDirectories(project.resolve(".mvn/wrapper"));
+        Files.write(project.resolve(".mvn/wrapper/maven-wrapper.jar"), jar);
+    }
+
+    @TearDown
+    public void deleteProject() throws IOException {
+        Paths.deleteDirectory(project);
+    }
+
+    @Benchmark
+    public byte[] zipOutputStream() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(bytes)) {
+            Files.walkFileTree(project, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    zos.putNextEntry(new ZipEntry("demo/" + project.relativize(file)));
+                    Files.copy(file, zos);
+                    zos.closeEntry();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    zos.putNextEntry(new ZipEntry("demo/" + project.relativize(dir) + "/"));
+                    zos.closeEntry();
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] zipChannelWriter() throws IOException {
+        return Paths.zip("demo", project);
+    }
+}
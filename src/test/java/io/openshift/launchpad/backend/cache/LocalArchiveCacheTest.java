@@ -0,0 +1,97 @@
+package io.openshift.launchpad.backend.cache;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for @see LocalArchiveCache
+ */
+public class LocalArchiveCacheTest {
+
+    private LocalArchiveCache cache;
+
+    @Before
+    public void createCache() throws Exception {
+        cache = new LocalArchiveCache(Files.createTempDirectory("archive-cache"), 10);
+    }
+
+    @Test
+    public void shouldReturnStoredArchive() throws Exception {
+        //given
+        cache.put("zip:rev:vert.x", archive(4));
+
+        //when
+        CachedArchive archive = cache.get("zip:rev:vert.x");
+
+        //then
+        assertArrayEquals(new byte[4], archive.getContents());
+        assertEquals("demo", archive.getProperties().get("artifactId"));
+        assertNull(cache.get("zip:rev:spring-boot"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedArchivesBeyondMaxSize() throws Exception {
+        //given
+        cache.put("first", archive(4));
+        cache.put("second", archive(4));
+        cache.get("first");
+
+        //when
+        cache.put("third", archive(4));
+
+        //then
+        assertNotNull(cache.get("first"));
+        assertNull(cache.get("second"));
+        assertNotNull(cache.get("third"));
+        assertEquals(8, cache.getTotalBytes());
+    }
+
+    @Test
+    public void shouldReplaceArchiveWithSameKey() throws Exception {
+        //given
+        cache.put("first", archive(4));
+
+        //when
+        cache.put("first", archive(6));
+
+        //then
+        assertEquals(1, cache.size());
+        assertEquals(6, cache.getTotalBytes());
+    }
+
+    @Test
+    public void shouldNotKeepArchivesLargerThanMaxSize() throws Exception {
+        //when
+        cache.put("large", archive(11));
+
+        //then
+        assertNull(cache.get("large"));
+        assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void shouldDeleteArchivesOfPreviousRun() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("archive-cache");
+        Path leftover = Files.createFile(directory.resolve("leftover.zip"));
+
+        //when
+        new LocalArchiveCache(directory, 10).put("first", archive(4));
+
+        //then
+        assertEquals(false, Files.exists(leftover));
+    }
+
+    private static CachedArchive archive(int size) {
+        return new CachedArchive(new byte[size], Collections.singletonMap("artifactId", "demo"));
+    }
+}
@@ -0,0 +1,84 @@
+package io.openshift.launchpad.backend.cache;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for @see SharedArchiveCache, with two replicas sharing a directory
+ */
+public class SharedArchiveCacheTest {
+
+    private static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+    @Test
+    public void shouldShareArchivesBetweenReplicas() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("shared");
+        SharedArchiveCache first = new SharedArchiveCache(directory, TTL);
+        SharedArchiveCache second = new SharedArchiveCache(directory, TTL);
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("named", "demo");
+        properties.put("gitHubDescription", "A demo = booster");
+
+        //when
+        first.put("missioncontrol:rev:vert.x", new CachedArchive(new byte[] { 1, 2, 3 }, properties));
+
+        //then
+        CachedArchive archive = second.get("missioncontrol:rev:vert.x");
+        assertArrayEquals(new byte[] { 1, 2, 3 }, archive.getContents());
+        assertEquals(properties, archive.getProperties());
+        assertNull(second.get("missioncontrol:rev:spring-boot"));
+    }
+
+    @Test
+    public void shouldFillLocalCacheFromSharedCache() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("shared");
+        new SharedArchiveCache(directory, TTL).put("zip:rev:vert.x",
+                new CachedArchive(new byte[] { 1 }, new LinkedHashMap<>()));
+        LocalArchiveCache local = new LocalArchiveCache(Files.createTempDirectory("local"), 1024);
+        TieredArchiveCache cache = new TieredArchiveCache(local, new SharedArchiveCache(directory, TTL));
+
+        //when
+        CachedArchive archive = cache.get("zip:rev:vert.x");
+
+        //then
+        assertArrayEquals(new byte[] { 1 }, archive.getContents());
+        assertEquals(1, local.size());
+    }
+
+    @Test
+    public void shouldExpireArchives() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("shared");
+        SharedArchiveCache cache = new SharedArchiveCache(directory, TTL);
+        cache.put("zip:catalog:vert.x", new CachedArchive(new byte[] { 1 }, new LinkedHashMap<>()));
+        cache.put("zip:catalog:spring-boot", new CachedArchive(new byte[] { 2 }, new LinkedHashMap<>()));
+        FileTime expired = FileTime.fromMillis(System.currentTimeMillis() - TTL - 1000);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.setLastModifiedTime(file, expired);
+            }
+        }
+
+        //when
+        CachedArchive archive = cache.get("zip:catalog:vert.x");
+        cache.deleteExpired();
+
+        //then
+        assertNull(archive);
+        assertNull(cache.get("zip:catalog:spring-boot"));
+        assertEquals(0, Files.list(directory).count());
+    }
+}
@@ -0,0 +1,53 @@
+package io.openshift.launchpad.backend.catalog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test for @see BoosterIndex
+ */
+public class BoosterIndexTest {
+
+    private static final String[] REST_VERTX = {"rest-http", "vert.x", "community"};
+    private static final String[] REST_VERTX_RH = {"rest-http", "vert.x", "redhat"};
+    private static final String[] REST_SWARM = {"rest-http", "wildfly-swarm", null};
+    private static final String[] CRUD_SPRING = {"crud", "spring-boot", "community"};
+
+    private final BoosterIndex<String[]> index = new BoosterIndex<>(3,
+            Arrays.asList(REST_VERTX, REST_VERTX_RH, REST_SWARM, CRUD_SPRING),
+            booster -> booster[0], booster -> booster[1], booster -> booster[2]);
+
+    @Test
+    public void shouldListChoicesInCatalogOrder() {
+        assertEquals(3, index.getVersion());
+        assertEquals(4, index.size());
+        assertEquals(Arrays.asList("rest-http", "crud"), index.getMissions());
+        assertEquals(Arrays.asList("vert.x", "wildfly-swarm"), index.getRuntimes("rest-http"));
+        assertEquals(Collections.singletonList("spring-boot"), index.getRuntimes("crud"));
+        assertEquals(Arrays.asList("community", "redhat"), index.getVersions("rest-http", "vert.x"));
+        List<String> noVersion = index.getVersions("rest-http", "wildfly-swarm");
+        assertEquals(1, noVersion.size());
+        assertNull(noVersion.get(0));
+    }
+
+    @Test
+    public void shouldFindBoosters() {
+        assertSame(REST_VERTX_RH, index.getBooster("rest-http", "vert.x", "redhat"));
+        assertSame(REST_SWARM, index.getBooster("rest-http", "wildfly-swarm", null));
+        assertNull(index.getBooster("crud", "vert.x", "community"));
+        assertNull(index.getBooster("unknown", "vert.x", "community"));
+    }
+
+    @Test
+    public void shouldReturnEmptyChoicesForUnknownIds() {
+        assertEquals(Collections.emptyList(), index.getRuntimes("unknown"));
+        assertEquals(Collections.emptyList(), index.getVersions("crud", "unknown"));
+    }
+}
@@ -0,0 +1,102 @@
+package io.openshift.launchpad.backend.catalog;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for @see CatalogRepository, against a local bare repository
+ */
+public class CatalogRepositoryTest {
+
+    private Path work;
+    private CatalogRepository repository;
+
+    @Before
+    public void createRepository() throws Exception {
+        Path root = Files.createTempDirectory("catalog");
+        Path bare = root.resolve("booster-catalog.git");
+        work = root.resolve("work");
+        git(root, "init", "--quiet", "--bare", bare.toString());
+        git(root, "init", "--quiet", work.toString());
+        git(work, "checkout", "--quiet", "-b", "master");
+        commit("rest-http/vert.x/community/booster.yaml", "githubRepo: openshiftio-vertx-boosters/vertx-http-booster");
+        git(work, "remote", "add", "origin", bare.toString());
+        git(work, "push", "--quiet", "origin", "master");
+        repository = new CatalogRepository(bare.toUri().toString(), "master", root.resolve("clone"));
+    }
+
+    @Test
+    public void shouldReportEverythingChangedOnClone() throws Exception {
+        assertNull(repository.update());
+    }
+
+    @Test
+    public void shouldReportNoChangeWithoutNewCommits() throws Exception {
+        //given
+        repository.update();
+
+        //when
+        List<String> changed = repository.update();
+
+        //then
+        assertEquals(Collections.emptyList(), changed);
+    }
+
+    @Test
+    public void shouldIgnoreChangesOutsideDescriptors() throws Exception {
+        //given
+        repository.update();
+        commit("README.md", "The booster catalog");
+        git(work, "push", "--quiet", "origin", "master");
+
+        //when
+        List<String> changed = repository.update();
+
+        //then
+        assertEquals(Collections.emptyList(), changed);
+    }
+
+    @Test
+    public void shouldReportChangedDescriptors() throws Exception {
+        //given
+        repository.update();
+        commit("rest-http/vert.x/community/booster.yaml", "githubRepo: openshiftio-vertx-boosters/vertx-http-booster\nref: v2");
+        commit("crud/spring-boot/community/booster.yaml", "githubRepo: snowdrop/spring-boot-crud-booster");
+        git(work, "push", "--quiet", "origin", "master");
+
+        //when
+        List<String> changed = repository.update();
+
+        //then
+        Collections.sort(changed);
+        assertEquals(2, changed.size());
+        assertEquals("crud/spring-boot/community/booster.yaml", changed.get(0));
+        assertEquals("rest-http/vert.x/community/booster.yaml", changed.get(1));
+    }
+
+    private void commit(String path, String content) throws Exception {
+        Path file = work.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        git(work, "add", path);
+        git(work, "-c", "user.name=test", "-c", "user.email=test@localhost", "commit", "--quiet", "-m", path);
+    }
+
+    private static void git(Path directory, String... args) throws IOException, InterruptedException {
+        String[] command = new String[args.length + 1];
+        command[0] = "git";
+        System.arraycopy(args, 0, command, 1, args.length);
+        Process process = new ProcessBuilder(command).directory(directory.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor());
+    }
+}
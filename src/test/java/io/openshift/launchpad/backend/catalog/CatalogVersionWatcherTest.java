@@ -0,0 +1,155 @@
+package io.openshift.launchpad.backend.catalog;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see CatalogVersionWatcher, with two replicas sharing a marker file
+ */
+public class CatalogVersionWatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final AtomicInteger firstRefreshes = new AtomicInteger();
+    private final AtomicInteger secondRefreshes = new AtomicInteger();
+    private CatalogVersionWatcher first;
+    private CatalogVersionWatcher second;
+
+    @Before
+    public void createReplicas() throws Exception {
+        Path marker = Files.createTempDirectory("shared").resolve("catalog-version");
+        first = new CatalogVersionWatcher(marker, "launchpad-backend-1-abcde", 0, firstRefreshes::incrementAndGet,
+                scheduler);
+        second = new CatalogVersionWatcher(marker, "launchpad-backend-1-fghij", 0, secondRefreshes::incrementAndGet,
+                scheduler);
+    }
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotRefreshWithoutPublishedVersion() {
+        assertFalse(second.check());
+        assertNull(second.getSeenVersion());
+    }
+
+    @Test
+    public void shouldRefreshOtherReplicaOnPublish() throws Exception {
+        //given
+        first.publish();
+
+        //when
+        boolean firstScheduled = first.check();
+        boolean secondScheduled = second.check();
+
+        //then
+        assertFalse(firstScheduled);
+        assertTrue(secondScheduled);
+        assertEquals(first.getSeenVersion(), second.getSeenVersion());
+        awaitRefreshes(secondRefreshes, 1);
+        assertEquals(0, firstRefreshes.get());
+        assertFalse(second.check());
+    }
+
+    @Test
+    public void shouldRefreshOnceForEachPublishedVersion() throws Exception {
+        //given
+        first.publish();
+        second.check();
+        second.publish();
+
+        //when
+        boolean firstScheduled = first.check();
+
+        //then
+        assertTrue(firstScheduled);
+        awaitRefreshes(firstRefreshes, 1);
+        awaitRefreshes(secondRefreshes, 1);
+    }
+
+    @Test
+    public void shouldPropagateFullReload() throws Exception {
+        //given
+        Path marker = Files.createTempDirectory("shared").resolve("catalog-version");
+        List<Boolean> reloads = new CopyOnWriteArrayList<>();
+        CatalogVersionWatcher one = new CatalogVersionWatcher(marker, "launchpad-backend-1-abcde", 0, () -> {
+        }, scheduler);
+        CatalogVersionWatcher other = new CatalogVersionWatcher(marker, "launchpad-backend-1-fghij", 0,
+                (Consumer<Boolean>) reloads::add, scheduler);
+
+        //when
+        one.publish(true);
+        other.check();
+        awaitSize(reloads, 1);
+        one.publish(false);
+        other.check();
+        awaitSize(reloads, 2);
+
+        //then
+        assertEquals(Arrays.asList(true, false), reloads);
+    }
+
+    @Test
+    public void shouldPollMarker() throws Exception {
+        //given
+        second.start(10, TimeUnit.MILLISECONDS);
+
+        //when
+        first.publish();
+
+        //then
+        awaitRefreshes(secondRefreshes, 1);
+    }
+
+    @Test
+    public void shouldStaggerReplicas() throws Exception {
+        //given
+        Path marker = Files.createTempDirectory("shared").resolve("catalog-version");
+
+        //when
+        CatalogVersionWatcher one = new CatalogVersionWatcher(marker, "launchpad-backend-1-abcde", 60000, () -> {
+        }, scheduler);
+        CatalogVersionWatcher other = new CatalogVersionWatcher(marker, "launchpad-backend-1-fghij", 60000, () -> {
+        }, scheduler);
+
+        //then
+        assertTrue(one.getStaggerDelayMillis() >= 0 && one.getStaggerDelayMillis() < 60000);
+        assertTrue(other.getStaggerDelayMillis() >= 0 && other.getStaggerDelayMillis() < 60000);
+        assertNotEquals(one.getStaggerDelayMillis(), other.getStaggerDelayMillis());
+    }
+
+    private static void awaitSize(List<?> list, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (list.size() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void awaitRefreshes(AtomicInteger refreshes, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (refreshes.get() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(50);
+        assertEquals(expected, refreshes.get());
+    }
+}
@@ -0,0 +1,106 @@
+package io.openshift.launchpad.backend.catalog;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see ReindexCoordinator
+ */
+public class ReindexCoordinatorTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void shouldMergeTriggersInsideDebounceWindow() throws Exception {
+        //given
+        AtomicInteger reindexes = new AtomicInteger();
+        ReindexCoordinator coordinator = new ReindexCoordinator(reindexes::incrementAndGet, 200, scheduler);
+
+        //when
+        assertTrue(coordinator.trigger());
+        assertFalse(coordinator.trigger());
+        assertFalse(coordinator.trigger());
+        awaitIdle(coordinator);
+
+        //then
+        assertEquals(1, reindexes.get());
+        assertEquals(3, coordinator.getTriggerCount());
+        assertEquals(1, coordinator.getReindexCount());
+    }
+
+    @Test
+    public void shouldRunSingleFollowUpForTriggersWhileRunning() throws Exception {
+        //given
+        AtomicInteger reindexes = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ReindexCoordinator coordinator = new ReindexCoordinator(() -> {
+            if (reindexes.incrementAndGet() == 1) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0, scheduler);
+
+        //when
+        coordinator.trigger();
+        started.await();
+        assertTrue(coordinator.isRunning());
+        assertTrue(coordinator.trigger());
+        assertFalse(coordinator.trigger());
+        assertFalse(coordinator.trigger());
+        release.countDown();
+        awaitIdle(coordinator);
+
+        //then
+        assertEquals(2, reindexes.get());
+        assertEquals(4, coordinator.getTriggerCount());
+        assertEquals(2, coordinator.getReindexCount());
+    }
+
+    @Test
+    public void shouldKeepCoordinatingAfterFailedReindex() throws Exception {
+        //given
+        AtomicInteger reindexes = new AtomicInteger();
+        ReindexCoordinator coordinator = new ReindexCoordinator(() -> {
+            reindexes.incrementAndGet();
+            throw new IllegalStateException("catalog unavailable");
+        }, 0, scheduler);
+
+        //when
+        coordinator.trigger();
+        awaitIdle(coordinator);
+        coordinator.trigger();
+        awaitIdle(coordinator);
+
+        //then
+        assertEquals(2, reindexes.get());
+        assertEquals(2, coordinator.getReindexCount());
+    }
+
+    private static void awaitIdle(ReindexCoordinator coordinator) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ((coordinator.isPending() || coordinator.isRunning()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(coordinator.isPending() || coordinator.isRunning());
+    }
+}
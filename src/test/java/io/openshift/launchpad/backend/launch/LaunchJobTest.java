@@ -0,0 +1,81 @@
+package io.openshift.launchpad.backend.launch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see LaunchJob
+ */
+public class LaunchJobTest {
+
+    @Test
+    public void shouldNotifyWaitersWhenEventsArePublished() {
+        //given
+        LaunchJob job = new LaunchJob("job");
+        List<List<LaunchJob.Event>> batches = new ArrayList<>();
+        job.awaitEvents(0, batches::add);
+        assertTrue(batches.isEmpty());
+
+        //when
+        job.generationStarted();
+        job.generationFinished();
+
+        //then
+        assertEquals(1, batches.size());
+        assertEquals(LaunchJob.GENERATION_STARTED, batches.get(0).get(0).getName());
+    }
+
+    @Test
+    public void shouldReturnAvailableEventsRightAway() {
+        //given
+        LaunchJob job = new LaunchJob("job");
+        job.generationStarted();
+        job.generationFinished();
+        List<List<LaunchJob.Event>> batches = new ArrayList<>();
+
+        //when
+        job.awaitEvents(1, batches::add);
+
+        //then
+        assertEquals(1, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(LaunchJob.GENERATION_FINISHED, batches.get(0).get(0).getName());
+    }
+
+    @Test
+    public void shouldNotNotifyCancelledWaiters() {
+        //given
+        LaunchJob job = new LaunchJob("job");
+        List<List<LaunchJob.Event>> batches = new ArrayList<>();
+        Consumer<List<LaunchJob.Event>> callback = batches::add;
+        job.awaitEvents(0, callback);
+
+        //when
+        job.cancel(callback);
+        job.generationStarted();
+
+        //then
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    public void shouldReturnNoEventOnceFinished() {
+        //given
+        LaunchJob job = new LaunchJob("job");
+        job.failed(new IllegalStateException("failure"));
+        List<List<LaunchJob.Event>> batches = new ArrayList<>();
+
+        //when
+        job.awaitEvents(1, batches::add);
+
+        //then
+        assertEquals(1, batches.size());
+        assertTrue(batches.get(0).isEmpty());
+    }
+}
@@ -0,0 +1,155 @@
+package io.openshift.launchpad.backend.launch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see LaunchJournal
+ */
+public class LaunchJournalTest {
+
+    private static final byte[] SECRET = "secret".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void shouldKeepPendingLaunchesAcrossRestarts() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("journal");
+        LaunchJournal journal = new LaunchJournal(directory, SECRET);
+        journal.launchSubmitted("finished", "launchpad-new-project", content("finished"), headers());
+        journal.launchSubmitted("pending", "launchpad-new-project", content("pending"), headers());
+        journal.launchFinished(new LaunchJob("finished"));
+        journal.close();
+
+        //when
+        LaunchJournal restarted = new LaunchJournal(directory, SECRET);
+
+        //then
+        List<LaunchJournal.PendingLaunch> launches = restarted.getPendingLaunches();
+        assertEquals(1, launches.size());
+        assertEquals("pending", launches.get(0).getId());
+        assertEquals("launchpad-new-project", launches.get(0).getCommandName());
+        assertEquals(content("pending"), launches.get(0).getContent());
+        assertTrue(launches.get(0).isReplayable());
+        assertEquals(Collections.singletonList("Bearer token"), launches.get(0).getHeaders().get("authorization"));
+        assertEquals(Collections.singletonList("value"), launches.get(0).getHeaders().get("X-Header"));
+    }
+
+    @Test
+    public void shouldJournalCredentialsEncrypted() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("journal");
+        LaunchJournal journal = new LaunchJournal(directory, SECRET);
+
+        //when
+        journal.launchSubmitted("pending", "launchpad-new-project", content("pending"), headers());
+        journal.close();
+
+        //then
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> assertFalse(read(file).contains("token")));
+        }
+        LaunchJournal.PendingLaunch withOtherSecret = new LaunchJournal(directory,
+                "other".getBytes(StandardCharsets.UTF_8)).getPendingLaunches().get(0);
+        assertFalse(withOtherSecret.isReplayable());
+        assertFalse(withOtherSecret.getHeaders().containsKey("Authorization"));
+    }
+
+    @Test
+    public void shouldNotReplayLaunchesWithoutSecret() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("journal");
+        LaunchJournal journal = new LaunchJournal(directory, null);
+        journal.launchSubmitted("pending", "launchpad-new-project", content("pending"), headers());
+        journal.close();
+
+        //when
+        LaunchJournal restarted = new LaunchJournal(directory, SECRET);
+
+        //then
+        assertFalse(restarted.getPendingLaunches().get(0).isReplayable());
+    }
+
+    @Test
+    public void shouldTakeOverLaunchesOfInstancesWhichAreGone() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("journal");
+        Files.write(directory.resolve("launch-gone.journal"), Collections.singletonList("{\"op\":\"launch\","
+                + "\"id\":\"orphan\",\"command\":\"launchpad-new-project\",\"content\":{},\"headers\":{}}"),
+                StandardCharsets.UTF_8);
+        LaunchJournal running = new LaunchJournal(directory, SECRET);
+        running.launchSubmitted("running", "launchpad-new-project", content("running"), headers());
+
+        //when
+        LaunchJournal journal = new LaunchJournal(directory, SECRET);
+
+        //then
+        assertEquals("orphan", running.getPendingLaunches().get(0).getId());
+        assertTrue(journal.getPendingLaunches().isEmpty());
+        assertFalse(Files.exists(directory.resolve("launch-gone.journal")));
+    }
+
+    @Test
+    public void shouldShareEventsOfLaunchesWithOtherInstances() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("journal");
+        LaunchJournal journal = new LaunchJournal(directory, SECRET);
+        LaunchJournal other = new LaunchJournal(directory, SECRET);
+        LaunchJob job = new LaunchJob("job");
+        journal.launchSubmitted(job.getId(), "launchpad-new-project", content("job"), headers());
+        LaunchJob running = other.getJob("job");
+
+        //when
+        job.generationStarted();
+        job.failed(new IllegalStateException("failure"));
+        journal.launchFinished(job);
+
+        //then
+        assertFalse(running.isFinished());
+        assertTrue(running.getEvents().isEmpty());
+        LaunchJob finished = other.getJob("job");
+        assertTrue(finished.isFinished());
+        assertEquals(2, finished.getEvents().size());
+        assertEquals(LaunchJob.FAILED, finished.getEvents().get(1).getName());
+        assertEquals("failure", finished.getEvents().get(1).getData().getString("message"));
+        assertNull(other.getJob("unknown"));
+        assertNull(other.getJob("../job"));
+    }
+
+    private static JsonObject content(String name) {
+        return Json.createObjectBuilder().add("inputs", Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("name", "named").add("value", name))).build();
+    }
+
+    private static Map<String, List<String>> headers() {
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("Authorization", Collections.singletonList("Bearer token"));
+        headers.put("X-Header", Collections.singletonList("value"));
+        return headers;
+    }
+
+    private static String read(Path file) {
+        try {
+            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package io.openshift.launchpad.backend.launch;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import io.openshift.launchpad.backend.launch.RetainedArchives.RetainedArchive;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test for @see RetainedArchives
+ */
+public class RetainedArchivesTest {
+
+    @Test
+    public void shouldKeepArchiveUntilReleased() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("archives");
+        RetainedArchives archives = new RetainedArchives(directory, 1, TimeUnit.MINUTES);
+
+        //when
+        RetainedArchive archive = archives.retain("project", "Bearer token", new byte[]{1, 2, 3},
+                Collections.singletonMap("named", "demo"));
+
+        //then
+        assertSame(archive, archives.get("project", "Bearer token"));
+        assertNull(archives.get("project", "Bearer other"));
+        assertEquals(3, archive.getSize());
+        assertEquals("demo", archive.getProperties().get("named"));
+        assertEquals(1, Files.list(directory).count());
+
+        archives.release(archive);
+        assertNull(archives.get("project", "Bearer token"));
+        assertEquals(0, Files.list(directory).count());
+    }
+
+    @Test
+    public void shouldDeleteExpiredArchives() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("archives");
+        RetainedArchives archives = new RetainedArchives(directory, 10, TimeUnit.MILLISECONDS);
+        archives.retain("project", null, new byte[]{1}, Collections.emptyMap());
+
+        //when
+        Thread.sleep(50);
+
+        //then
+        assertNull(archives.get("project", null));
+        assertEquals(0, archives.size());
+        assertEquals(0, Files.list(directory).count());
+    }
+}
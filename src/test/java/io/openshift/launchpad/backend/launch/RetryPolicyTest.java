@@ -0,0 +1,29 @@
+package io.openshift.launchpad.backend.launch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see RetryPolicy
+ */
+public class RetryPolicyTest {
+
+    @Test
+    public void shouldJitterRetryDelaysWithinExponentialBound() {
+        //given
+        RetryPolicy policy = new RetryPolicy(3, 100);
+
+        //then
+        assertEquals(4, policy.getMaxAttempts());
+        assertTrue(policy.isRetryable(503));
+        assertFalse(policy.isRetryable(401));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.getDelayMillis(1) <= 100);
+            assertTrue(policy.getDelayMillis(3) <= 400);
+            assertTrue(policy.getDelayMillis(30) <= 10_000);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package io.openshift.launchpad.backend.rest;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see OriginMatcher
+ */
+public class OriginMatcherTest {
+
+    @Test
+    public void shouldMatchAnyOrigin() {
+        //given
+        OriginMatcher matcher = new OriginMatcher(Collections.singleton("*"));
+
+        //then
+        assertTrue(matcher.matches("https://launch.openshift.io"));
+        assertTrue(matcher.matches("http://localhost:8080"));
+    }
+
+    @Test
+    public void shouldMatchExactOrigins() {
+        //given
+        OriginMatcher matcher = new OriginMatcher(Arrays.asList("https://launch.openshift.io", "http://localhost:8080"));
+
+        //then
+        assertTrue(matcher.matches("https://launch.openshift.io"));
+        assertTrue(matcher.matches("http://localhost:8080"));
+        assertFalse(matcher.matches("http://launch.openshift.io"));
+        assertFalse(matcher.matches("http://localhost:8081"));
+    }
+
+    @Test
+    public void shouldMatchSubdomainPatterns() {
+        //given
+        OriginMatcher matcher = new OriginMatcher(Arrays.asList("https://*.openshift.io", "http://*.example.com:*"));
+
+        //then
+        assertTrue(matcher.matches("https://launch.openshift.io"));
+        assertTrue(matcher.matches("https://prod.launch.openshift.io"));
+        assertTrue(matcher.matches("http://dev.example.com:8080"));
+        assertFalse(matcher.matches("https://openshift.io"));
+        assertFalse(matcher.matches("https://launch.openshift.io.evil.com"));
+        assertFalse(matcher.matches("https://evil.com/.openshift.io"));
+        assertFalse(matcher.matches("http://launch.openshift.io"));
+    }
+}
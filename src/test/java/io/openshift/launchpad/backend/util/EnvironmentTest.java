@@ -0,0 +1,48 @@
+package io.openshift.launchpad.backend.util;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test for @see Environment
+ */
+public class EnvironmentTest {
+
+    private static final String NAME = "LAUNCHPAD_BACKEND_ENVIRONMENT_TEST";
+
+    @After
+    public void clearProperty() {
+        System.clearProperty(NAME);
+    }
+
+    @Test
+    public void shouldReturnDefaultValueWhenNotSet() {
+        //then
+        assertNull(Environment.getEnv(NAME));
+        assertEquals("default", Environment.getEnv(NAME, "default"));
+        assertEquals(42, Environment.getLong(NAME, 42));
+        assertEquals(3 * 1024 * 1024, Environment.getMegabytes(NAME, 3));
+    }
+
+    @Test
+    public void shouldReadSystemProperty() {
+        //given
+        System.setProperty(NAME, " 12 ");
+
+        //then
+        assertEquals(12, Environment.getInt(NAME, 0));
+        assertEquals(12L * 1024 * 1024, Environment.getMegabytes(NAME, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectInvalidNumber() {
+        //given
+        System.setProperty(NAME, "12MB");
+
+        //when
+        Environment.getLong(NAME, 0);
+    }
+}
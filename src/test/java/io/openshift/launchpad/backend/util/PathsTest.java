@@ -1,11 +1,16 @@
 package io.openshift.launchpad.backend.util;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -46,6 +51,35 @@ public class PathsTest {
         assertEquals(Files.readAllLines(contentFile), Collections.singletonList(content));
     }
 
+    @Test
+    public void shouldZipReproducibly() throws Exception {
+        //given
+        Path first = Files.createTempDirectory("junit");
+        Files.createDirectories(first.resolve("src/main"));
+        Files.write(first.resolve("pom.xml"), "<project/>".getBytes());
+        Files.write(first.resolve("src/main/App.java"), "class App {}".getBytes());
+        Path second = Files.createTempDirectory("junit");
+        Files.write(second.resolve("pom.xml"), "<project/>".getBytes());
+        Files.createDirectories(second.resolve("src/main"));
+        Files.write(second.resolve("src/main/App.java"), "class App {}".getBytes());
+        Files.setLastModifiedTime(second.resolve("pom.xml"), FileTime.fromMillis(0));
+
+        //when
+        byte[] firstZip = Paths.zip("demo", first);
+        byte[] secondZip = Paths.zip("demo", second);
+
+        //then
+        assertArrayEquals(firstZip, secondZip);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(firstZip))) {
+            for (ZipEntry entry = zis.getNextEntry(); entry != null; entry = zis.getNextEntry()) {
+                entries.add(entry.getName());
+            }
+        }
+        assertEquals(Arrays.asList("demo/", "demo/pom.xml", "demo/src/", "demo/src/main/", "demo/src/main/App.java"),
+                entries);
+    }
+
     @Test
     public void deleteDirectory() throws Exception {
         //given
@@ -0,0 +1,76 @@
+package io.openshift.launchpad.backend.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see RingBuffer
+ */
+public class RingBufferTest {
+
+    @Test
+    public void shouldDropElementsWhenFull() {
+        //given
+        RingBuffer<String> buffer = new RingBuffer<>(2);
+
+        //when
+        boolean first = buffer.offer("a");
+        boolean second = buffer.offer("b");
+        boolean third = buffer.offer("c");
+
+        //then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(1, buffer.getDropped());
+        assertEquals("a", buffer.poll());
+        assertTrue(buffer.offer("d"));
+        assertEquals("b", buffer.poll());
+        assertEquals("d", buffer.poll());
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void shouldDeliverEveryElementOfConcurrentProducers() throws Exception {
+        //given
+        RingBuffer<Integer> buffer = new RingBuffer<>(1024);
+        ExecutorService producers = Executors.newFixedThreadPool(4);
+        CountDownLatch done = new CountDownLatch(4);
+
+        //when
+        for (int p = 0; p < 4; p++) {
+            int offset = p * 10_000;
+            producers.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    while (!buffer.offer(offset + i)) {
+                        Thread.yield();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        Set<Integer> received = new HashSet<>();
+        while (received.size() < 40_000) {
+            Integer element = buffer.poll();
+            if (element != null) {
+                received.add(element);
+            }
+        }
+
+        //then
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertNull(buffer.poll());
+        producers.shutdown();
+    }
+}
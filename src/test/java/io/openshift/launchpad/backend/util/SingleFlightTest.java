@@ -0,0 +1,124 @@
+package io.openshift.launchpad.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for @see SingleFlight
+ */
+public class SingleFlightTest {
+
+    @Test
+    public void shouldShareResultOfConcurrentCallsWithSameKey() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        List<Future<String>> results = new ArrayList<>();
+
+        //when
+        results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "zip";
+        }, 10, TimeUnit.SECONDS)));
+        started.await();
+        for (int i = 0; i < 4; i++) {
+            results.add(executor.submit(() -> singleFlight.execute("key", () -> {
+                calls.incrementAndGet();
+                return "other";
+            }, 10, TimeUnit.SECONDS)));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        //then
+        for (Future<String> result : results) {
+            assertEquals("zip", result.get());
+        }
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.size());
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldRunCallsAgainOnceFinished() throws Exception {
+        //given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        //when
+        singleFlight.execute("key", calls::incrementAndGet, 1, TimeUnit.SECONDS);
+        int second = singleFlight.execute("key", calls::incrementAndGet, 1, TimeUnit.SECONDS);
+
+        //then
+        assertEquals(2, second);
+    }
+
+    @Test
+    public void shouldRunCallWhenWaitingTimesOut() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            release.await();
+            return "slow";
+        }, 1, TimeUnit.SECONDS));
+        started.await();
+
+        //when
+        String result = singleFlight.execute("key", () -> "fast", 10, TimeUnit.MILLISECONDS);
+
+        //then
+        assertEquals("fast", result);
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldShareFailure() throws Exception {
+        //given
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            release.await();
+            throw new IllegalStateException("failed");
+        }, 1, TimeUnit.SECONDS));
+        started.await();
+
+        //when
+        Future<String> waiting = Executors.newSingleThreadExecutor()
+                .submit(() -> singleFlight.execute("key", () -> "other", 10, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        release.countDown();
+
+        //then
+        try {
+            waiting.get();
+            fail("The failure should be shared");
+        } catch (java.util.concurrent.ExecutionException e) {
+            assertEquals("failed", e.getCause().getMessage());
+        }
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,83 @@
+package io.openshift.launchpad.backend.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see SpeculationCache
+ */
+public class SpeculationCacheTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnResultOnce() throws Exception {
+        //given
+        SpeculationCache<String, String> cache = new SpeculationCache<>(10, 1, TimeUnit.MINUTES);
+        AtomicInteger runs = new AtomicInteger();
+
+        //when
+        cache.start("key", () -> "zip" + runs.incrementAndGet(), executor);
+        cache.start("key", () -> "zip" + runs.incrementAndGet(), executor);
+
+        //then
+        assertEquals("zip1", cache.take("key", 1, TimeUnit.SECONDS));
+        assertNull(cache.take("key", 1, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void shouldCancelEvictedTasks() throws Exception {
+        //given
+        SpeculationCache<String, String> cache = new SpeculationCache<>(1, 1, TimeUnit.MINUTES);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        cache.start("first", () -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "first";
+        }, executor);
+        started.await();
+
+        //when
+        cache.start("second", () -> "second", executor);
+
+        //then
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        assertNull(cache.take("first", 1, TimeUnit.SECONDS));
+        assertEquals("second", cache.take("second", 1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldDiscardExpiredResults() throws Exception {
+        //given
+        SpeculationCache<String, String> cache = new SpeculationCache<>(10, 10, TimeUnit.MILLISECONDS);
+        cache.start("key", () -> "zip", executor);
+
+        //when
+        Thread.sleep(50);
+
+        //then
+        assertNull(cache.take("key", 1, TimeUnit.SECONDS));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,99 @@
+package io.openshift.launchpad.backend.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see ThresholdGZipOutputStream
+ */
+public class ThresholdGZipOutputStreamTest {
+
+    @Test
+    public void shouldNotCompressSmallContent() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger compressions = new AtomicInteger();
+        byte[] content = "{\"inputs\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        //when
+        try (ThresholdGZipOutputStream gzip = new ThresholdGZipOutputStream(out, 1024, 6, compressions::incrementAndGet)) {
+            gzip.write(content);
+            assertFalse(gzip.isCompressing());
+        }
+
+        //then
+        assertEquals(0, compressions.get());
+        assertArrayEquals(content, out.toByteArray());
+    }
+
+    @Test
+    public void shouldCompressLargeContent() throws Exception {
+        //given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AtomicInteger compressions = new AtomicInteger();
+        byte[] content = new byte[10_000];
+        Arrays.fill(content, (byte) 'a');
+
+        //when
+        try (ThresholdGZipOutputStream gzip = new ThresholdGZipOutputStream(out, 1024, 9, compressions::incrementAndGet)) {
+            for (int i = 0; i < content.length; i += 100) {
+                gzip.write(content, i, 100);
+            }
+            assertTrue(gzip.isCompressing());
+        }
+
+        //then
+        assertEquals(1, compressions.get());
+        assertTrue(out.size() < content.length);
+        ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                decompressed.write(buffer, 0, read);
+            }
+        }
+        assertArrayEquals(content, decompressed.toByteArray());
+    }
+
+    @Test
+    public void shouldLeaveUnderlyingStreamOpenWhenClosed() throws Exception {
+        //given
+        AtomicBoolean closed = new AtomicBoolean();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        ThresholdGZipOutputStream gzip = new ThresholdGZipOutputStream(out, 16, 6, () -> {
+        });
+        gzip.write(new byte[1024]);
+
+        //when
+        gzip.close();
+        gzip.close();
+
+        //then
+        assertFalse(closed.get());
+        long size = 0;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            while (in.read() != -1) {
+                size++;
+            }
+        }
+        assertEquals(1024, size);
+    }
+}
@@ -0,0 +1,63 @@
+package io.openshift.launchpad.backend.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Test for @see VirtualThreads
+ */
+public class VirtualThreadsTest {
+
+    @After
+    public void tearDown() {
+        System.clearProperty("LAUNCHPAD_BACKEND_VIRTUAL_THREADS");
+    }
+
+    @Test
+    public void shouldRunTasksOnVirtualThreadsWhenEnabled() throws Exception {
+        //given
+        assumeTrue(VirtualThreads.isSupported());
+        System.setProperty("LAUNCHPAD_BACKEND_VIRTUAL_THREADS", "true");
+
+        //when
+        ExecutorService executor = VirtualThreads.newExecutorIfEnabled();
+
+        //then
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+            assertEquals(true, Thread.class.getMethod("isVirtual").invoke(thread));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldIgnoreSettingWhenNotSupported() {
+        //given
+        assumeFalse(VirtualThreads.isSupported());
+        System.setProperty("LAUNCHPAD_BACKEND_VIRTUAL_THREADS", "true");
+
+        //when
+        ExecutorService executor = VirtualThreads.newExecutorIfEnabled();
+
+        //then
+        assertNull(executor);
+    }
+
+    @Test
+    public void shouldNotUseVirtualThreadsByDefault() {
+        //when
+        ExecutorService executor = VirtualThreads.newExecutorIfEnabled();
+
+        //then
+        assertNull(executor);
+    }
+}
@@ -0,0 +1,61 @@
+package io.openshift.launchpad.backend.util;
+
+import java.nio.charset.StandardCharsets;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for @see WizardStateToken
+ */
+public class WizardStateTokenTest {
+
+    private final WizardStateToken stateToken = new WizardStateToken("secret".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void shouldRestoreEncodedState() {
+        //given
+        JsonObject state = new JsonBuilder().createJson(2).addInput("mission", "crud").addInput("runtime", "vert.x").build();
+
+        //when
+        String token = stateToken.encode(state);
+
+        //then
+        assertEquals(state, stateToken.decode(token));
+    }
+
+    @Test
+    public void shouldBeRestoredByAnotherInstanceWithSameSecret() {
+        //given
+        JsonObject state = new JsonBuilder().createJson(1).addInput("mission", "crud").build();
+        WizardStateToken otherReplica = new WizardStateToken("secret".getBytes(StandardCharsets.UTF_8));
+
+        //when
+        String token = stateToken.encode(state);
+
+        //then
+        assertEquals(state, otherReplica.decode(token));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTamperedToken() {
+        //given
+        String token = stateToken.encode(new JsonBuilder().createJson(1).addInput("mission", "crud").build());
+        String forged = stateToken.encode(new JsonBuilder().createJson(1).addInput("mission", "rest").build());
+
+        //when
+        stateToken.decode(forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.')));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTokenSignedWithAnotherSecret() {
+        //given
+        WizardStateToken other = new WizardStateToken("other".getBytes(StandardCharsets.UTF_8));
+
+        //when
+        stateToken.decode(other.encode(new JsonBuilder().createJson(1).build()));
+    }
+}
@@ -0,0 +1,151 @@
+package io.openshift.launchpad.backend.util;
+
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test for @see ZipChannelWriter
+ */
+public class ZipChannelWriterTest {
+
+    @Test
+    public void shouldStoreCompressedFilesAndDeflateOthers() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("junit");
+        byte[] jar = new byte[200 * 1024];
+        new Random(42).nextBytes(jar);
+        Files.write(directory.resolve("lib.jar"), jar);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        byte[] readme = text.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(directory.resolve("README.md"), readme);
+        Path archive = directory.resolve("project.zip");
+
+        //when
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ZipChannelWriter writer = new ZipChannelWriter(channel)) {
+            writer.addDirectory("demo/");
+            writer.addFile("demo/README.md", directory.resolve("README.md"));
+            writer.addFile("demo/lib.jar", directory.resolve("lib.jar"));
+        }
+
+        //then
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(3, zip.size());
+            assertTrue(zip.getEntry("demo/").isDirectory());
+            ZipEntry readmeEntry = zip.getEntry("demo/README.md");
+            assertEquals(ZipEntry.DEFLATED, readmeEntry.getMethod());
+            assertArrayEquals(readme, read(zip, readmeEntry));
+            ZipEntry jarEntry = zip.getEntry("demo/lib.jar");
+            assertEquals(ZipEntry.STORED, jarEntry.getMethod());
+            assertArrayEquals(jar, read(zip, jarEntry));
+        }
+    }
+
+    @Test
+    public void shouldStoreSmallCompressedFiles() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("junit");
+        byte[] image = new byte[1000];
+        new Random(42).nextBytes(image);
+        Files.write(directory.resolve("logo.png"), image);
+        Path archive = directory.resolve("project.zip");
+
+        //when
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ZipChannelWriter writer = new ZipChannelWriter(channel)) {
+            writer.addFile("demo/logo.png", directory.resolve("logo.png"));
+        }
+
+        //then
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry entry = zip.getEntry("demo/logo.png");
+            assertEquals(ZipEntry.STORED, entry.getMethod());
+            assertArrayEquals(image, read(zip, entry));
+        }
+    }
+
+    @Test
+    public void shouldKeepOwnerExecutePermission() throws Exception {
+        //given
+        Path directory = Files.createTempDirectory("junit");
+        Path mvnw = Files.write(directory.resolve("mvnw"), "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        Path pom = Files.write(directory.resolve("pom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+        Assume.assumeTrue(directory.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Files.setPosixFilePermissions(mvnw, PosixFilePermissions.fromString("rwxr--r--"));
+        Files.setPosixFilePermissions(pom, PosixFilePermissions.fromString("rw-r-xr-x"));
+
+        //when
+        Path archive = directory.resolve("project.zip");
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ZipChannelWriter writer = new ZipChannelWriter(channel)) {
+            writer.addFile("demo/mvnw", mvnw);
+            writer.addFile("demo/pom.xml", pom);
+        }
+
+        //then
+        byte[] bytes = Files.readAllBytes(archive);
+        assertEquals(0100755, getMode(bytes, "demo/mvnw"));
+        assertEquals(0100644, getMode(bytes, "demo/pom.xml"));
+    }
+
+    @Test
+    public void shouldWriteEmptyArchive() throws Exception {
+        //given
+        Path archive = Files.createTempFile("junit", ".zip");
+
+        //when
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.WRITE);
+             ZipChannelWriter writer = new ZipChannelWriter(channel)) {
+            writer.addDirectory("demo/");
+        }
+
+        //then
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(1, zip.size());
+        }
+    }
+
+    /**
+     * @return the Unix mode in the external attributes of the central directory header of the given entry
+     */
+    private static int getMode(byte[] archive, String name) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(archive).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] expected = name.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < archive.length - 46; i++) {
+            if (buffer.getInt(i) == 0x02014b50 && buffer.getShort(i + 28) == expected.length
+                    && name.equals(new String(archive, i + 46, expected.length, StandardCharsets.UTF_8))) {
+                return buffer.getInt(i + 38) >>> 16;
+            }
+        }
+        throw new AssertionError("No central directory header for " + name);
+    }
+
+    private static byte[] read(ZipFile zip, ZipEntry entry) throws Exception {
+        byte[] contents = new byte[(int) entry.getSize()];
+        try (InputStream in = zip.getInputStream(entry)) {
+            new DataInputStream(in).readFully(contents);
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,92 @@
+package io.openshift.launchpad.backend.workspace;
+
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import io.openshift.launchpad.backend.workspace.DiskPressureWatchdog.Pressure;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test for @see DiskPressureWatchdog
+ */
+public class DiskPressureWatchdogTest {
+
+    private static final long MB = 1024L * 1024;
+
+    @Test
+    public void shouldReportNormalPressureWithEnoughFreeSpace() throws Exception {
+        //given
+        DiskPressureWatchdog watchdog = createWatchdog(2048 * MB);
+
+        //when
+        watchdog.cleanupScheduled();
+        watchdog.cleanupFinished(10 * MB);
+
+        //then
+        assertEquals(Pressure.NORMAL, watchdog.getPressure());
+        assertEquals(0, watchdog.getOutstandingCleanupBytes());
+    }
+
+    @Test
+    public void shouldReportHighPressureWithLowFreeSpace() throws Exception {
+        assertEquals(Pressure.HIGH, createWatchdog(512 * MB).getPressure());
+    }
+
+    @Test
+    public void shouldReportCriticalPressureWithoutFreeSpace() throws Exception {
+        assertEquals(Pressure.CRITICAL, createWatchdog(64 * MB).getPressure());
+    }
+
+    @Test
+    public void shouldReportHighPressureWithTooManyDirectoriesWaitingForCleanup() throws Exception {
+        //given
+        DiskPressureWatchdog watchdog = createWatchdog(2048 * MB);
+        watchdog.cleanupScheduled();
+        watchdog.cleanupFinished(100 * MB);
+
+        //when
+        for (int i = 0; i < 6; i++) {
+            watchdog.cleanupScheduled();
+        }
+
+        //then
+        assertEquals(6, watchdog.getPendingCleanups());
+        assertEquals(600 * MB, watchdog.getOutstandingCleanupBytes());
+        assertEquals(Pressure.HIGH, watchdog.getPressure());
+
+        //when
+        for (int i = 0; i < 2; i++) {
+            watchdog.cleanupFinished(100 * MB);
+        }
+
+        //then
+        assertEquals(Pressure.NORMAL, watchdog.getPressure());
+    }
+
+    @Test
+    public void shouldIgnoreDirectoriesAlreadyGoneInAverageSize() throws Exception {
+        //given
+        DiskPressureWatchdog watchdog = createWatchdog(2048 * MB);
+        watchdog.cleanupScheduled();
+        watchdog.cleanupFinished(100 * MB);
+
+        //when
+        watchdog.cleanupScheduled();
+        watchdog.cleanupFinished(0);
+        watchdog.cleanupScheduled();
+
+        //then
+        assertEquals(1, watchdog.getPendingCleanups());
+        assertEquals(100 * MB, watchdog.getOutstandingCleanupBytes());
+    }
+
+    private static DiskPressureWatchdog createWatchdog(long usableSpace) throws Exception {
+        WorkspaceManager workspaces = new WorkspaceManager(
+                Collections.singletonList(Files.createTempDirectory("workspace")),
+                WorkspaceManager.Placement.ROUND_ROBIN, 0, root -> usableSpace);
+        return new DiskPressureWatchdog(workspaces, 1024 * MB, 128 * MB, 512 * MB);
+    }
+}
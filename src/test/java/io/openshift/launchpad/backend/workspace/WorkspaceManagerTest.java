@@ -0,0 +1,166 @@
+package io.openshift.launchpad.backend.workspace;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test for @see WorkspaceManager
+ */
+public class WorkspaceManagerTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    public void shouldAlternateWorkspacesWithRoundRobin() throws Exception {
+        //given
+        Path first = Files.createTempDirectory("workspace");
+        Path second = Files.createTempDirectory("workspace");
+        WorkspaceManager manager = new WorkspaceManager(Arrays.asList(first, second),
+                WorkspaceManager.Placement.ROUND_ROBIN, 0, root -> GB);
+
+        //when
+        Path a = manager.createDirectory("projectDir");
+        Path b = manager.createDirectory("projectDir");
+        Path c = manager.createDirectory("projectDir");
+
+        //then
+        assertEquals(first, a.getParent().getParent());
+        assertEquals(second, b.getParent().getParent());
+        assertEquals(first, c.getParent().getParent());
+        assertTrue(Files.isDirectory(a));
+        assertEquals(2, manager.getWorkspaces().get(0).getInFlight());
+    }
+
+    @Test
+    public void shouldPreferWorkspaceWithFewestDirectoriesInUse() throws Exception {
+        //given
+        Path first = Files.createTempDirectory("workspace");
+        Path second = Files.createTempDirectory("workspace");
+        WorkspaceManager manager = new WorkspaceManager(Arrays.asList(first, second),
+                WorkspaceManager.Placement.LEAST_USED, 0, root -> GB);
+        Path a = manager.createDirectory("projectDir");
+        Path b = manager.createDirectory("projectDir");
+
+        //when
+        manager.release(a);
+        Path c = manager.createDirectory("projectDir");
+
+        //then
+        assertEquals(a.getParent(), c.getParent());
+        assertEquals(1, manager.getWorkspaces().get(0).getInFlight());
+        assertEquals(1, manager.getWorkspaces().get(1).getInFlight());
+        assertFalse(a.getParent().equals(b.getParent()));
+    }
+
+    @Test
+    public void shouldSkipNearlyFullWorkspaces() throws Exception {
+        //given
+        Path full = Files.createTempDirectory("workspace");
+        Path empty = Files.createTempDirectory("workspace");
+        Map<Path, Long> space = new HashMap<>();
+        space.put(full, 10L);
+        space.put(empty, GB);
+        WorkspaceManager manager = new WorkspaceManager(Arrays.asList(full, empty),
+                WorkspaceManager.Placement.ROUND_ROBIN, 1024, space::get);
+
+        //when
+        Path a = manager.createDirectory("projectDir");
+        Path b = manager.createDirectory("projectDir");
+
+        //then
+        assertFalse(manager.getWorkspaces().get(0).isAvailable());
+        assertEquals(empty, a.getParent().getParent());
+        assertEquals(empty, b.getParent().getParent());
+    }
+
+    @Test
+    public void shouldFallBackToWorkspaceWithMostFreeSpaceWhenAllAreFull() throws Exception {
+        //given
+        Path fuller = Files.createTempDirectory("workspace");
+        Path lessFull = Files.createTempDirectory("workspace");
+        Map<Path, Long> space = new HashMap<>();
+        space.put(fuller, 10L);
+        space.put(lessFull, 20L);
+        WorkspaceManager manager = new WorkspaceManager(Arrays.asList(fuller, lessFull),
+                WorkspaceManager.Placement.ROUND_ROBIN, 1024, space::get);
+
+        //when
+        Path directory = manager.createDirectory("projectDir");
+
+        //then
+        assertEquals(lessFull, directory.getParent().getParent());
+    }
+
+    @Test
+    public void shouldFindDirectoriesLeftByPreviousProcess() throws Exception {
+        //given
+        Path root = Files.createTempDirectory("workspace");
+        WorkspaceManager manager = new WorkspaceManager(Collections.singletonList(root),
+                WorkspaceManager.Placement.ROUND_ROBIN, 0, path -> GB);
+        Path instanceDirectory = manager.getWorkspaces().get(0).getInstanceDirectory();
+        Path leftover = Files.createTempDirectory(instanceDirectory, "projectDir");
+        Files.createTempFile(instanceDirectory, "projectDir", ".zip");
+        Files.createTempDirectory(instanceDirectory, "other");
+        manager.createDirectory("projectDir");
+
+        //when
+        List<Path> leftovers = manager.findLeftoverDirectories("projectDir");
+
+        //then
+        assertEquals(Collections.singletonList(leftover), leftovers);
+    }
+
+    @Test
+    public void shouldFindDirectoriesOfInstancesWhichAreGoneOnly() throws Exception {
+        //given
+        Path root = Files.createTempDirectory("workspace");
+        Path gone = Files.createDirectory(root.resolve("launchpad-gone"));
+        Files.createTempDirectory(gone, "projectDir");
+        WorkspaceManager running = new WorkspaceManager(Collections.singletonList(root),
+                WorkspaceManager.Placement.ROUND_ROBIN, 0, path -> GB);
+        Path runningDirectory = running.createDirectory("projectDir");
+        WorkspaceManager manager = new WorkspaceManager(Collections.singletonList(root),
+                WorkspaceManager.Placement.ROUND_ROBIN, 0, path -> GB);
+
+        //when
+        List<Path> leftovers = manager.findLeftoverDirectories("projectDir");
+        List<Path> again = manager.findLeftoverDirectories("projectDir");
+
+        //then
+        assertEquals(Collections.singletonList(gone), leftovers);
+        assertTrue(again.isEmpty());
+        assertTrue(Files.isDirectory(runningDirectory));
+        assertTrue(Files.exists(root.resolve("launchpad-gone.lock")));
+        manager.release(gone);
+        assertFalse(Files.exists(root.resolve("launchpad-gone.lock")));
+    }
+
+    @Test
+    public void shouldReportInvalidPlacement() {
+        //given
+        System.setProperty("LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT", "random");
+
+        try {
+            //when
+            WorkspaceManager.fromEnvironment();
+            fail("The placement should be rejected");
+        } catch (IllegalArgumentException e) {
+            //then
+            assertTrue(e.getMessage().contains("LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT"));
+        } finally {
+            System.clearProperty("LAUNCHPAD_BACKEND_WORKSPACE_PLACEMENT");
+        }
+    }
+}